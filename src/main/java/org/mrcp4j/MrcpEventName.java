@@ -22,6 +22,11 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the event names that are valid values for MRCPv2 event messages.
  * 
@@ -90,10 +95,14 @@ public enum MrcpEventName {
     //START_OF_INPUT                ("START-OF-INPUT"),  <- already defined under recognizer-event
 
 
+    private static final TokenTable<MrcpEventName> TOKENS = new TokenTable<MrcpEventName>(values());
+
     private String _name;
+    private byte[] _bytes;
 
     private MrcpEventName(String name) {
         _name = name;
+        _bytes = name.getBytes(StandardCharsets.US_ASCII);
     }
 
     /* (non-Javadoc)
@@ -104,6 +113,21 @@ public enum MrcpEventName {
         return _name;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        return _bytes.length;
+    }
+
+    /**
+     * Writes the US-ASCII encoded event name to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        buf.put(_bytes);
+    }
+
     /**
      * Converts an MRCP event name in string format to the appropriate MRCP4J enum value.
      * @param str MRCP event string
@@ -112,12 +136,31 @@ public enum MrcpEventName {
      * a valid MRCP event name
      */
     public static MrcpEventName fromString(String str) throws IllegalArgumentException {
-        for (MrcpEventName value : MrcpEventName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpEventName value = find(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up the event-name matching a string, ignoring case.
+     * @param str MRCP event-name, may be null.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpEventName find(CharSequence str) {
+        return TOKENS.get(str);
+    }
+
+    /**
+     * Looks up the event-name contained in a range of bytes, ignoring case.
+     * @param buf buffer containing the US-ASCII encoded event-name.
+     * @param from index of the first byte of the event-name.
+     * @param to index following the last byte of the event-name.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpEventName find(ByteBuffer buf, int from, int to) {
+        return TOKENS.get(buf, from, to);
     }
 
 }
\ No newline at end of file
@@ -22,6 +22,11 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the method names that are valid values for MRCPv2 request messages.
  * 
@@ -245,10 +250,14 @@ public enum MrcpMethodName {
      */
     GET_INTERMEDIATE_RESULT ("GET-INTERMEDIATE-RESULT");
     
+    private static final TokenTable<MrcpMethodName> TOKENS = new TokenTable<MrcpMethodName>(values());
+
     private String _name;
+    private byte[] _bytes;
 
     private MrcpMethodName(String name) {
         _name = name;
+        _bytes = name.getBytes(StandardCharsets.US_ASCII);
     }
 
     /* (non-Javadoc)
@@ -259,6 +268,21 @@ public enum MrcpMethodName {
         return _name;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        return _bytes.length;
+    }
+
+    /**
+     * Writes the US-ASCII encoded method name to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        buf.put(_bytes);
+    }
+
     /**
      * Converts an MRCP method in string format to the appropriate MRCP4J enum value.
      * @param str MRCP method string
@@ -267,12 +291,31 @@ public enum MrcpMethodName {
      * an existing MRCP method name
      */
     public static MrcpMethodName fromString(String str) throws IllegalArgumentException {
-        for (MrcpMethodName value : MrcpMethodName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpMethodName value = find(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up the method-name matching a string, ignoring case.
+     * @param str MRCP method-name, may be null.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpMethodName find(CharSequence str) {
+        return TOKENS.get(str);
+    }
+
+    /**
+     * Looks up the method-name contained in a range of bytes, ignoring case.
+     * @param buf buffer containing the US-ASCII encoded method-name.
+     * @param from index of the first byte of the method-name.
+     * @param to index following the last byte of the method-name.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpMethodName find(ByteBuffer buf, int from, int to) {
+        return TOKENS.get(buf, from, to);
     }
 
 }
\ No newline at end of file
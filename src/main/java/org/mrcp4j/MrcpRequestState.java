@@ -22,6 +22,11 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the request states that are valid for MRCPv2.
  * 
@@ -47,10 +52,14 @@ public enum MrcpRequestState {
      */
     COMPLETE    ("COMPLETE");
 
+    private static final TokenTable<MrcpRequestState> TOKENS = new TokenTable<MrcpRequestState>(values());
+
     private String _name;
+    private byte[] _bytes;
 
     MrcpRequestState(String name) {
         _name = name;
+        _bytes = name.getBytes(StandardCharsets.US_ASCII);
     }
 
     /* (non-Javadoc)
@@ -61,6 +70,21 @@ public enum MrcpRequestState {
         return _name;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        return _bytes.length;
+    }
+
+    /**
+     * Writes the US-ASCII encoded request state to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        buf.put(_bytes);
+    }
+
     /**
      * Converts an MRCP request state in string format to the appropriate MRCP4J enum value.
      * @param str MRCP request state
@@ -69,12 +93,31 @@ public enum MrcpRequestState {
      * an existing MRCP request state
      */
     public static MrcpRequestState fromString(String str) throws IllegalArgumentException {
-        for (MrcpRequestState value : MrcpRequestState.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpRequestState value = find(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up the request-state matching a string, ignoring case.
+     * @param str MRCP request-state, may be null.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpRequestState find(CharSequence str) {
+        return TOKENS.get(str);
+    }
+
+    /**
+     * Looks up the request-state contained in a range of bytes, ignoring case.
+     * @param buf buffer containing the US-ASCII encoded request-state.
+     * @param from index of the first byte of the request-state.
+     * @param to index following the last byte of the request-state.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpRequestState find(ByteBuffer buf, int from, int to) {
+        return TOKENS.get(buf, from, to);
     }
 
 }
\ No newline at end of file
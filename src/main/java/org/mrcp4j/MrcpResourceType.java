@@ -22,6 +22,11 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the resource types that are valid for MRCPv2.
  * 
@@ -64,10 +69,14 @@ public enum MrcpResourceType {
     RECORDER     ("recorder");
 
 
+    private static final TokenTable<MrcpResourceType> TOKENS = new TokenTable<MrcpResourceType>(values());
+
     private String _name;
+    private byte[] _bytes;
 
     MrcpResourceType(String name) {
         _name = name;
+        _bytes = name.getBytes(StandardCharsets.US_ASCII);
     }
 
     /* (non-Javadoc)
@@ -78,6 +87,21 @@ public enum MrcpResourceType {
         return _name;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        return _bytes.length;
+    }
+
+    /**
+     * Writes the US-ASCII encoded resource type to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        buf.put(_bytes);
+    }
+
     /**
      * Converts an MRCP resource type in string format to the appropriate MRCP4J enum value.
      * @param str MRCP resource type.
@@ -86,12 +110,31 @@ public enum MrcpResourceType {
      * an existing MRCP resource type.
      */
     public static MrcpResourceType fromString(String str) throws IllegalArgumentException {
-        for (MrcpResourceType value : MrcpResourceType.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpResourceType value = find(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up the resource type matching a string, ignoring case.
+     * @param str MRCP resource type, may be null.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpResourceType find(CharSequence str) {
+        return TOKENS.get(str);
+    }
+
+    /**
+     * Looks up the resource type contained in a range of bytes, ignoring case.
+     * @param buf buffer containing the US-ASCII encoded resource type.
+     * @param from index of the first byte of the resource type.
+     * @param to index following the last byte of the resource type.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpResourceType find(ByteBuffer buf, int from, int to) {
+        return TOKENS.get(buf, from, to);
     }
 
     /**
@@ -25,11 +25,21 @@ package org.mrcp4j.client;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
 import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.MrcpResponse;
@@ -37,8 +47,11 @@ import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.RequestIdList;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.util.HashedWheelTimer;
+import org.mrcp4j.util.LongTable;
 
 /**
  * Provides all primary functionality required for an MRCPv2 client to interact with an MRCPv2 resource.  Through an instance of this class
@@ -52,8 +65,26 @@ import org.mrcp4j.message.request.MrcpRequestFactory;
 public class MrcpChannel implements MrcpMessageHandler {
     private static Logger _log = LogManager.getLogger(MrcpChannel.class);
     
-    private MrcpResponse _response = new MrcpResponse();
+    // requests waiting for their response by request-id, guarded by the response lock
+    private LongTable<CompletableFuture<MrcpResponse>> _pendingResponses = new LongTable<CompletableFuture<MrcpResponse>>();
     private Object _responseLock = new Object();
+
+    // requests submitted with a handle that have not reached COMPLETE state, guarded by the response lock
+    private LongTable<MrcpRequestHandle> _handles = new LongTable<MrcpRequestHandle>();
+
+    // request-ids given up on by timeout or cancellation whose late response is discarded, oldest first,
+    // guarded by the response lock
+    private Map<Long, Boolean> _abandoned = new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            // the response of a request abandoned this long ago is not coming, forget it rather than grow without bound
+            return size() > MAX_ABANDONED;
+        }
+    };
+    private static final int MAX_ABANDONED = 256;
+
+    // expires the deadlines of requests, shared by all channels; deadlines are seconds long so a coarse tick will do
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("mrcp4j-client-timer", 100, TimeUnit.MILLISECONDS, 512);
     private List<MrcpEventListener> _listeners = Collections.synchronizedList(new ArrayList<MrcpEventListener>());
 
     private ChannelIdentifier _channelID;
@@ -138,32 +169,291 @@ public class MrcpChannel implements MrcpMessageHandler {
      * @throws MrcpInvocationException           if the MRCP resource returned a response error code
      * @throws InterruptedException    if another thread interrupted the current thread while the current thread
      *                                 was waiting for a response from the MRCP resource.
+     * @throws IllegalStateException   if called by an event listener of a channel of the same connection, which
+     *                                 would wait for a response that can only be delivered once it returns.
      */
-    public synchronized MrcpResponse sendRequest(MrcpRequest request)
+    public MrcpResponse sendRequest(MrcpRequest request)
       throws IOException, MrcpInvocationException, InterruptedException {
 
-    	_log.debug("Sending request: "+request.toString());
-        MrcpResponse response = null;
+        checkNotDispatchThread();
+        CompletableFuture<MrcpResponse> future = sendRequestAsync(request);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            abandon(request.getRequestID(), future);
+            throw e;
+        }
+    }
+
+    /**
+     * Invokes a request on the MRCP resource associated with this channel, waiting at most the specified time for
+     * the response.  A response arriving after the timeout is discarded.
+     * @param  request                 specification of the request to be invoked.
+     * @param  timeout                 the maximum time to wait for the response.
+     * @param  unit                    the unit of the timeout argument.
+     * @return                         the response provided by the MRCP resource to the specified request.
+     * @throws IOException             if an I/O error occurs.
+     * @throws MrcpInvocationException if the MRCP resource returned a response error code
+     * @throws InterruptedException    if another thread interrupted the current thread while the current thread
+     *                                 was waiting for a response from the MRCP resource.
+     * @throws TimeoutException        if no response was received within the timeout.
+     * @throws IllegalStateException   if called by an event listener of a channel of the same connection.
+     */
+    public MrcpResponse sendRequest(MrcpRequest request, long timeout, TimeUnit unit)
+      throws IOException, MrcpInvocationException, InterruptedException, TimeoutException {
+
+        checkNotDispatchThread();
+        CompletableFuture<MrcpResponse> future = sendRequestAsync(request);
+        try {
+            return future.get(timeout, unit);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            abandon(request.getRequestID(), future);
+            throw e;
+        } catch (InterruptedException e) {
+            abandon(request.getRequestID(), future);
+            throw e;
+        }
+    }
+
+    private void checkNotDispatchThread() {
+        if (_socket.isDispatchThread()) {
+            throw new IllegalStateException(
+                    "Blocking sendRequest() cannot be called while handling a message of the same connection, use sendRequestAsync()");
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) throws MrcpInvocationException {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof MrcpInvocationException) {
+            throw (MrcpInvocationException) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    // stops waiting for the response of a request sent by sendRequestAsync()
+    private void abandon(long requestID, CompletableFuture<MrcpResponse> future) {
+        abandon(requestID, future, null);
+    }
+
+    // as above, failing the future with the specified cause rather than cancelling it if the cause is not null
+    private void abandon(long requestID, CompletableFuture<MrcpResponse> future, Throwable cause) {
         synchronized (_responseLock) {
-            _response = null;
-            _socket.sendRequest(request);
-            while (_response == null) {
-                try {
-                    _responseLock.wait();
-                } catch (InterruptedException e) {
-                    //TODO: register response to be discarded if received later
-                    throw e;
+            if (_pendingResponses.get(requestID) == future) {
+                _pendingResponses.remove(requestID);
+                markAbandoned(requestID);
+            }
+        }
+        if (cause == null) {
+            future.cancel(false);
+        } else {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    // must be called holding the response lock
+    private void markAbandoned(long requestID) {
+        _abandoned.put(requestID, Boolean.TRUE);
+    }
+
+    /**
+     * Sends a request to the MRCP resource associated with this channel without waiting for the response, so that
+     * several requests can be pipelined.  Responses are matched to requests by request-id.
+     *
+     * <p>The returned future is completed on the handler thread delivering the messages of the connection, so
+     * dependent actions should not block or should use the asynchronous methods of the future.</p>
+     *
+     * @param  request specification of the request to be invoked.
+     * @return a future completed with the response, or completed exceptionally with a
+     *         {@link MrcpInvocationException} if the MRCP resource returned a response error code or with an
+     *         {@link IOException} if the request could not be sent or the connection was closed.
+     * @throws IllegalStateException if a request with the same request-id is waiting for its response.
+     */
+    public CompletableFuture<MrcpResponse> sendRequestAsync(MrcpRequest request) {
+        CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        send(request, future, null);
+        return future;
+    }
+
+    /**
+     * Sends a request like {@link #sendRequestAsync(MrcpRequest)}, giving up on it if no response has been received
+     * within the specified time.  The future then fails with a {@link TimeoutException} on the timer thread, and a
+     * response arriving later is discarded.
+     * @param  request specification of the request to be invoked.
+     * @param  timeout the maximum time to wait for the response.
+     * @param  unit    the unit of the timeout argument.
+     * @return a future completed with the response, or completed exceptionally.
+     * @throws IllegalStateException if a request with the same request-id is waiting for its response.
+     */
+    public CompletableFuture<MrcpResponse> sendRequestAsync(MrcpRequest request, long timeout, TimeUnit unit) {
+        final CompletableFuture<MrcpResponse> future = sendRequestAsync(request);
+        final long requestID = request.getRequestID();
+        final long timeoutMillis = unit.toMillis(timeout);
+        final HashedWheelTimer.Timeout deadline = TIMER.schedule(new Runnable() {
+            public void run() {
+                abandon(requestID, future, new TimeoutException("No response received within " + timeoutMillis + "ms"));
+            }
+        }, timeout, unit);
+        future.whenComplete(new BiConsumer<MrcpResponse, Throwable>() {
+            public void accept(MrcpResponse response, Throwable cause) {
+                deadline.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Sends a request to the MRCP resource associated with this channel and tracks it until it reaches COMPLETE
+     * state, which for requests such as RECOGNIZE or SPEAK is signalled by an event.  Events of the request are
+     * delivered to the listeners of the handle as well as to the listeners of this channel.
+     * @param  request specification of the request to be invoked.
+     * @return a handle exposing the response, the events and the completion of the request.
+     * @throws IllegalStateException if a request with the same request-id is waiting for its response.
+     */
+    public MrcpRequestHandle submitRequest(MrcpRequest request) {
+        MrcpRequestHandle handle = new MrcpRequestHandle(this, request);
+        send(request, null, handle);
+        return handle;
+    }
+
+    /**
+     * Sends a request like {@link #submitRequest(MrcpRequest)}, giving up on it if it has not reached COMPLETE state
+     * within the specified time.  The futures of the handle then fail with a {@link TimeoutException}, and the
+     * response and events arriving later are no longer delivered to the handle.
+     * @param  request specification of the request to be invoked.
+     * @param  timeout the maximum time for the request to complete.
+     * @param  unit    the unit of the timeout argument.
+     * @param  stop    whether to send a STOP request for the request when the timeout elapses.
+     * @return a handle exposing the response, the events and the completion of the request.
+     * @throws IllegalStateException if a request with the same request-id is waiting for its response.
+     */
+    public MrcpRequestHandle submitRequest(MrcpRequest request, long timeout, TimeUnit unit, final boolean stop) {
+        final MrcpRequestHandle handle = submitRequest(request);
+        final long timeoutMillis = unit.toMillis(timeout);
+        final HashedWheelTimer.Timeout deadline = TIMER.schedule(new Runnable() {
+            public void run() {
+                abort(handle, new TimeoutException("Request did not complete within " + timeoutMillis + "ms"), stop);
+            }
+        }, timeout, unit);
+        handle.getCompletion().whenComplete(new BiConsumer<MrcpEvent, Throwable>() {
+            public void accept(MrcpEvent event, Throwable cause) {
+                deadline.cancel();
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Stops tracking a submitted request, failing the futures of its handle with the specified cause.
+     * @param handle the handle of the request.
+     * @param cause the exception the futures of the handle fail with.
+     * @param stop whether to send a STOP request for the request.
+     * @return a future completed with the response to the STOP request, or with null if none was sent because
+     *         the request had already completed or no STOP was requested.
+     */
+    CompletableFuture<MrcpResponse> abort(MrcpRequestHandle handle, Throwable cause, boolean stop) {
+        long requestID = handle.getRequest().getRequestID();
+        synchronized (_responseLock) {
+            if (_handles.get(requestID) != handle) {
+                return CompletableFuture.completedFuture(null);
+            }
+            _handles.remove(requestID);
+            if (!handle.getResponse().isDone()) {
+                markAbandoned(requestID);
+            }
+        }
+        handle.failed(cause);
+        if (!stop) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        MrcpRequest stopRequest = createRequest(MrcpMethodName.STOP);
+        RequestIdList activeRequests = new RequestIdList();
+        activeRequests.addRequestId(requestID);
+        stopRequest.addHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST.constructHeader(activeRequests));
+        return sendRequestAsync(stopRequest);
+    }
+
+    private void send(MrcpRequest request, final CompletableFuture<MrcpResponse> future, final MrcpRequestHandle handle) {
+        if (_log.isDebugEnabled()) {
+            _log.debug("Sending request: " + request);
+        }
+        final long requestID = request.getRequestID();
+        synchronized (_responseLock) {
+            if (_pendingResponses.get(requestID) != null || _handles.get(requestID) != null) {
+                throw new IllegalStateException("Request-id " + requestID + " is already waiting for a response!");
+            }
+            if (handle == null) {
+                _pendingResponses.put(requestID, future);
+            } else {
+                _handles.put(requestID, handle);
+            }
+        }
+        WriteFuture written;
+        try {
+            written = _socket.sendRequest(request);
+        } catch (IOException e) {
+            sendFailed(requestID, future, handle, e);
+            return;
+        }
+
+        // a request that never reached the connection will get no response
+        written.addListener(new IoFutureListener<WriteFuture>() {
+            public void operationComplete(WriteFuture writeFuture) {
+                if (!writeFuture.isWritten()) {
+                    sendFailed(requestID, future, handle,
+                            new IOException("Request " + requestID + " could not be sent", writeFuture.getException()));
+                }
+            }
+        });
+    }
+
+    private void sendFailed(long requestID, CompletableFuture<MrcpResponse> future, MrcpRequestHandle handle,
+            IOException cause) {
+        _log.debug(cause, cause);
+        synchronized (_responseLock) {
+            if (handle == null) {
+                if (_pendingResponses.get(requestID) == future) {
+                    _pendingResponses.remove(requestID);
                 }
+            } else if (_handles.get(requestID) == handle) {
+                _handles.remove(requestID);
             }
-            response = _response;
         }
-        _log.debug("Got resp: "+response.toString());
-        //TODO: validate that the response matches the request
+        if (handle == null) {
+            future.completeExceptionally(cause);
+        } else {
+            handle.failed(cause);
+        }
+    }
 
-        if (response.getStatusCode() > 299) {
-            throw new MrcpInvocationException(response);
+    /**
+     * Fails the requests waiting for a response once the connection to the MRCP server has been closed.
+     * @param cause the error the connection was closed for, or null if it was closed normally.
+     */
+    void connectionClosed(Throwable cause) {
+        List<CompletableFuture<MrcpResponse>> pending;
+        List<MrcpRequestHandle> handles;
+        synchronized (_responseLock) {
+            pending = _pendingResponses.values();
+            _pendingResponses.clear();
+            _abandoned.clear();
+            handles = _handles.values();
+            _handles.clear();
+        }
+        for (CompletableFuture<MrcpResponse> future : pending) {
+            future.completeExceptionally(
+                    new IOException("Connection to MRCP server closed before the response was received", cause));
+        }
+        for (MrcpRequestHandle handle : handles) {
+            handle.failed(new IOException("Connection to MRCP server closed before the request completed", cause));
         }
-        return response;
     }
 
     /**
@@ -182,24 +472,54 @@ public class MrcpChannel implements MrcpMessageHandler {
         _listeners.remove(listener);
     }
 
+    private boolean removeAbandoned(long requestID) {
+        synchronized (_responseLock) {
+            return _abandoned.remove(requestID) != null;
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.mrcp4j.client.MrcpMessageHandler#handleMessage(org.mrcp4j.message.MrcpMessage)
      */
     public void handleMessage(MrcpMessage message) {
         if (message instanceof MrcpResponse) {
+            MrcpResponse response = (MrcpResponse) message;
             _log.debug("got a response in handler: "+message.toString());
+            long requestID = response.getRequestID();
+            CompletableFuture<MrcpResponse> future;
+            MrcpRequestHandle handle;
             synchronized (_responseLock) {
-            	_log.debug("response lock set");
-                if (_response == null) { // sendRequest is waiting for a response
-                    _response = (MrcpResponse) message;
-                    _responseLock.notifyAll();
-                } else {
-                    _log.warn("Unexpected response received when no request was being sent!");
-                    _log.warn("Message: "+message.toString());
+                future = _pendingResponses.remove(requestID);
+                handle = _handles.get(requestID);
+                if (handle != null && (response.getStatusCode() > 299 ||
+                        response.getRequestState().equals(MrcpRequestState.COMPLETE))) {
+                    _handles.remove(requestID);
                 }
             }
+            if (handle != null) {
+                handle.responseReceived(response);
+            } else if (future == null && removeAbandoned(requestID)) {
+                _log.debug("Discarding late response to abandoned request: " + requestID);
+            } else if (future == null) {
+                _log.warn("Unexpected response received for a request that is not waiting for one!");
+                _log.warn("Message: "+message.toString());
+            } else if (response.getStatusCode() > 299) {
+                future.completeExceptionally(new MrcpInvocationException(response));
+            } else {
+                future.complete(response);
+            }
         } else {
-        	_log.info("Got an event: "+((MrcpEvent) message).toString());
+            MrcpEvent event = (MrcpEvent) message;
+        	_log.info("Got an event: "+event.toString());
+            MrcpRequestHandle handle;
+            synchronized (_responseLock) {
+                handle = event.getRequestState().equals(MrcpRequestState.COMPLETE)
+                    ? _handles.remove(event.getRequestID())
+                    : _handles.get(event.getRequestID());
+            }
+            if (handle != null) {
+                handle.eventReceived(event);
+            }
             synchronized (_listeners) {
                 for (MrcpEventListener listener : _listeners) {
                     listener.eventReceived((MrcpEvent) message);
@@ -25,8 +25,11 @@ package org.mrcp4j.client;
 import org.mrcp4j.MrcpEventName;
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpTokenizer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 /**
@@ -43,63 +46,80 @@ public class MrcpEventDecoder {
     private static final int EVENT_LINE_REQUEST_STATE_PART  = 4;
     private static final int EVENT_LINE_PART_COUNT          = 5;
 
+    private int[] _eventLineParts = new int[EVENT_LINE_PART_COUNT * 2];
+
     public MrcpEvent createEvent(String eventLine) throws IOException, ParseException {
 
         if (eventLine == null || (eventLine = eventLine.trim()).length() < 1) {
             throw new ParseException("No event-line provided!", -1);
         }
 
-        String[] eventLineParts = eventLine.split(" ");
-        if (eventLineParts.length != EVENT_LINE_PART_COUNT) {
+        byte[] bytes = eventLine.getBytes(StandardCharsets.ISO_8859_1);
+        return createEvent(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Creates an event from the event-line contained in the specified range of the buffer.
+     * @param buf buffer containing the event-line.
+     * @param from index of the first byte of the event-line.
+     * @param to index following the last byte of the event-line, leading and trailing whitespace is ignored.
+     * @return the event corresponding to the event-line.
+     * @throws ParseException if the event-line is not valid.
+     */
+    public MrcpEvent createEvent(ByteBuffer buf, int from, int to) throws ParseException {
+
+        from = MrcpTokenizer.trimStart(buf, from, to);
+        to = MrcpTokenizer.trimEnd(buf, from, to);
+        if (from == to) {
+            throw new ParseException("No event-line provided!", -1);
+        }
+
+        int[] parts = _eventLineParts;
+        if (MrcpTokenizer.tokenize(buf, from, to, parts) != EVENT_LINE_PART_COUNT) {
             throw new ParseException("Incorrect event-line format!", -1);
         }
 
         MrcpEvent event = new MrcpEvent();
 
         // mrcp-version
-        event.setVersion(eventLineParts[EVENT_LINE_MRCP_VERSION_PART]); //TODO: check if this matches request version, maybe at a higher level...
+        event.setVersion(MrcpTokenizer.toVersionString(buf, //TODO: check if this matches request version, maybe at a higher level...
+            parts[EVENT_LINE_MRCP_VERSION_PART * 2], parts[EVENT_LINE_MRCP_VERSION_PART * 2 + 1]));
 
         // message-length
         try {
-            event.setMessageLength(
-                Integer.parseInt(eventLineParts[EVENT_LINE_MESSAGE_LENGTH_PART])
-            );
+            event.setMessageLength(MrcpTokenizer.parseInt(buf,
+                parts[EVENT_LINE_MESSAGE_LENGTH_PART * 2], parts[EVENT_LINE_MESSAGE_LENGTH_PART * 2 + 1]));
         } catch (NumberFormatException e){
             String message = "Incorrect message-length format!";
             throw (ParseException) new ParseException(message, -1).initCause(e);
         }
 
         // event-name
-        try {
-            event.setEventName(
-                MrcpEventName.fromString(eventLineParts[EVENT_LINE_EVENT_NAME_PART])
-            );
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect event-name format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
+        MrcpEventName eventName = MrcpEventName.find(buf,
+            parts[EVENT_LINE_EVENT_NAME_PART * 2], parts[EVENT_LINE_EVENT_NAME_PART * 2 + 1]);
+        if (eventName == null) {
+            throw new ParseException("Incorrect event-name format!", -1);
         }
+        event.setEventName(eventName);
 
         // request-id
         try {
-            event.setRequestID(
-                Long.parseLong(eventLineParts[EVENT_LINE_REQUEST_ID_PART])
-            );
+            event.setRequestID(MrcpTokenizer.parseLong(buf,
+                parts[EVENT_LINE_REQUEST_ID_PART * 2], parts[EVENT_LINE_REQUEST_ID_PART * 2 + 1]));
         } catch (NumberFormatException e){
             String message = "Incorrect request-id format!";
             throw (ParseException) new ParseException(message, -1).initCause(e);
         }
 
         // request-state
-        try {
-            event.setRequestState(
-                MrcpRequestState.fromString(eventLineParts[EVENT_LINE_REQUEST_STATE_PART])
-            );
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect request-state format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
+        MrcpRequestState requestState = MrcpRequestState.find(buf,
+            parts[EVENT_LINE_REQUEST_STATE_PART * 2], parts[EVENT_LINE_REQUEST_STATE_PART * 2 + 1]);
+        if (requestState == null) {
+            throw new ParseException("Incorrect request-state format!", -1);
         }
+        event.setRequestState(requestState);
 
         return event;
     }
 
-}
\ No newline at end of file
+}
@@ -22,13 +22,17 @@
  */
 package org.mrcp4j.client;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
+import java.util.Arrays;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpTokenizer;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
@@ -49,54 +53,64 @@ public class MrcpMessageDecoder {
     private static final int RESPONSE_LINE_REQUEST_ID_PART  = 2;
     private static final int START_LINE_PART_COUNT          = 5;
 
+    // current line, reused between reads and grown as needed
+    private byte[] _line = new byte[256];
+    private ByteBuffer _lineBuffer = ByteBuffer.wrap(_line);
+    private int[] _startLineParts = new int[START_LINE_PART_COUNT * 2];
+
+    /**
+     * Reads the next message from the stream, blocking only until its bytes have arrived.  Empty lines preceding
+     * the start-line are skipped.
+     * @param in the stream to read from.
+     * @return the decoded response or event.
+     * @throws EOFException if the end of the stream is reached before the start-line of a message.
+     * @throws IOException if an I/O error occurs.
+     * @throws ParseException if the message is not valid.
+     */
     // TODO: change ParseException to MrcpProtocolException
-    public MrcpMessage decode(BufferedReader in) throws IOException, ParseException {
+    public MrcpMessage decode(InputStream in) throws IOException, ParseException {
 
         // read until the first non-empty line to get the start-line
-        String line = null;
-        while ((line = in.readLine()) == null || (line = line.trim()).equals("")) {
+        int from = 0;
+        int to = 0;
+        int length;
+        while ((length = readLine(in)) >= 0 &&
+                (from = MrcpTokenizer.trimStart(_lineBuffer, 0, length)) == (to = MrcpTokenizer.trimEnd(_lineBuffer, from, length))) {
             if (_log.isTraceEnabled())
-                _log.trace((line == null) ? "MrcpMessageDecoder: null line" : "MrcpMessageDecoder: empty line");
-            try {
-                Thread.sleep(100); // TODO: make sleep time configurable
-            } catch (InterruptedException e) {
-                _log.debug(e, e);
-            }
+                _log.trace("MrcpMessageDecoder: empty line");
+        }
+        if (length < 0) {
+            throw new EOFException("End of stream reached before the start of a message");
         }
 
         // verify the start-line contains the correct number of parts
-        String[] startLineParts = line.split(" ");
-        if (startLineParts.length != START_LINE_PART_COUNT) {
+        int[] parts = _startLineParts;
+        if (MrcpTokenizer.tokenize(_lineBuffer, from, to, parts) != START_LINE_PART_COUNT) {
             throw new ParseException("Incorrect start-line format!", -1);
         }
 
         // determine if the message is a response or an event message
-        boolean isResponse = false;
-        try {
-            Long.parseLong(startLineParts[RESPONSE_LINE_REQUEST_ID_PART]);
-            isResponse = true;
-        } catch (NumberFormatException e){
-            // ignore, message should be event
-        }
+        boolean isResponse = isDigits(_lineBuffer,
+            parts[RESPONSE_LINE_REQUEST_ID_PART * 2], parts[RESPONSE_LINE_REQUEST_ID_PART * 2 + 1]);
 
         // create the message from the start-line
         MrcpMessage message = null;
         if (isResponse) {
-            message = _responseDecoder.createResponse(line);
+            message = _responseDecoder.createResponse(_lineBuffer, from, to);
         } else {
-            message = _eventDecoder.createEvent(line);
+            message = _eventDecoder.createEvent(_lineBuffer, from, to);
         }
 
         // populate message headers
-        while ((line = in.readLine()) != null && !(line = line.trim()).equals("")) {
+        while ((length = readLine(in)) >= 0 &&
+                (from = MrcpTokenizer.trimStart(_lineBuffer, 0, length)) != (to = MrcpTokenizer.trimEnd(_lineBuffer, from, length))) {
             // TODO: handle multi-line headers
-            int index = line.indexOf(':');
-            if (index < 1) {
+            int index = MrcpTokenizer.indexOf(_lineBuffer, from, to, MrcpTokenizer.COLON);
+            if (index <= from) {
                 throw new ParseException("Incorrect message-header format!", -1);
             }
-            String name = line.substring(0, index);
-            String value = line.substring(index + 1).trim();
-            MrcpHeader header = MrcpHeaderName.createHeader(name, value);
+            String value = MrcpTokenizer.toAsciiString(_lineBuffer, MrcpTokenizer.trimStart(_lineBuffer, index + 1, to), to);
+            MrcpHeader header = MrcpHeaderName.createHeader(_lineBuffer, from, index, value);
             message.addHeader(header);
         }
 
@@ -104,22 +118,55 @@ public class MrcpMessageDecoder {
         MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
         int contentLength = 0;
         try {
-            contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
+            contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
         } catch (IllegalValueException e) {
             throw new ParseException(e.getMessage(), -1);
         }
         if (contentLength > 0) {
-            char[] content = new char[contentLength];
-            int length = in.read(content, 0, contentLength);
-            if (length != contentLength) {
+            byte[] content = new byte[contentLength];
+            int offset = 0;
+            int count;
+            while (offset < contentLength && (count = in.read(content, offset, contentLength - offset)) > 0) {
+                offset += count;
+            }
+            if (offset != contentLength) {
                 throw new ParseException("Content length mismatch, expected " +
-                        contentLength + ", got " + length, -1);
+                        contentLength + ", got " + offset, -1);
             }
-            message.setContent(new String(content));
+            message.setContent(content);
         }
 
         return message;
     }
 
+    /**
+     * Reads the next line into the line buffer.
+     * @return the number of bytes in the line excluding the line feed, or -1 if the end of the stream has been reached.
+     */
+    private int readLine(InputStream in) throws IOException {
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1 && b != MrcpTokenizer.LF) {
+            if (length == _line.length) {
+                _line = Arrays.copyOf(_line, _line.length * 2);
+                _lineBuffer = ByteBuffer.wrap(_line);
+            }
+            _line[length++] = (byte) b;
+        }
+        return (b == -1 && length == 0) ? -1 : length;
+    }
+
+    static boolean isDigits(ByteBuffer buf, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
 
-}
\ No newline at end of file
+}
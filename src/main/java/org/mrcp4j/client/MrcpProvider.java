@@ -22,17 +22,30 @@
  */
 package org.mrcp4j.client;
 
+import org.apache.mina.core.service.IoConnector;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.filter.executor.ExecutorFilter;
+import org.apache.mina.filter.executor.OrderedThreadPoolExecutor;
+import org.apache.mina.transport.socket.nio.NioSocketConnector;
 import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.util.NamedThreadFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides functionality for simplified management of {@link org.mrcp4j.client.MrcpChannel} instances by an MRCPv2 client.
  *
  * <p>To construct a {@code MrcpProvider} instance use {@link org.mrcp4j.client.MrcpFactory#createProvider()}.</p>
+ *
+ * <p>The connections of all channels created by a provider are served by a single NIO connector, so a client
+ * holding many connections needs only a few I/O threads.  Received messages are delivered to channels, and on
+ * to event listeners, on a separate pool of handler threads, in order for each connection, so that a slow
+ * listener does not hold up the I/O of other connections.</p>
  * 
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
@@ -48,6 +61,11 @@ public class MrcpProvider {
      */
     public static final String PROTOCOL_TLS_MRCPv2 = "TCP/TLS/MRCPv2";
 
+    /**
+     * Maximum number of threads delivering received messages to the channels of a provider.
+     */
+    public static final int DEFAULT_MAX_HANDLER_THREADS = 16;
+
     /**
      * Compile time flag for setting whether to share {@link org.mrcp4j.client.MrcpSocket} instances.
      */
@@ -55,6 +73,9 @@ public class MrcpProvider {
 
     private Map<String, MrcpSocket> _sockets = SHARE_SOCKETS ? new HashMap<String, MrcpSocket>() : null;
 
+    private IoConnector _connector;
+    private ExecutorService _handlerExecutor;
+
     MrcpProvider() {
         // restrict constructor to package visibility
     }
@@ -89,19 +110,55 @@ public class MrcpProvider {
         // TODO: provide method to close channel
     }
 
+    /**
+     * Closes the connections of all channels created by this provider and releases its I/O and handler threads.
+     */
+    public void dispose() {
+        IoConnector connector;
+        ExecutorService handlerExecutor;
+        synchronized (this) {
+            connector = _connector;
+            handlerExecutor = _handlerExecutor;
+            _connector = null;
+            _handlerExecutor = null;
+        }
+        if (connector != null) {
+            connector.dispose();
+            handlerExecutor.shutdown();
+        }
+        if (SHARE_SOCKETS) {
+            synchronized (_sockets) {
+                _sockets.clear();
+            }
+        }
+    }
+
+    private synchronized IoConnector getConnector() {
+        if (_connector == null) {
+            NioSocketConnector connector = new NioSocketConnector();
+            _handlerExecutor = new OrderedThreadPoolExecutor(0, DEFAULT_MAX_HANDLER_THREADS, 60, TimeUnit.SECONDS,
+                    new NamedThreadFactory("mrcp4j-client-handler"));
+            connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(new MrcpClientCodecFactory()));
+            connector.getFilterChain().addLast("executor", new ExecutorFilter(_handlerExecutor));
+            connector.setHandler(new MrcpSocket.ClientHandler());
+            _connector = connector;
+        }
+        return _connector;
+    }
+
     private MrcpSocket getSocket(InetAddress host, int port, String transport)
       throws IOException {
         if (!SHARE_SOCKETS) {
-            return new MrcpSocket(host, port);
+            return MrcpSocket.connect(getConnector(), host, port);
         }
 
         String key = getSocketKey(host, port, transport);
 
         synchronized (_sockets) {
             MrcpSocket socket = _sockets.get(key);
-            if (socket == null) {
+            if (socket == null || socket.isClosed()) {
                 //TODO: move socket initialization outside synchronization block
-                socket = new MrcpSocket(host, port);
+                socket = MrcpSocket.connect(getConnector(), host, port);
                 _sockets.put(key, socket);
             }
             return socket;
@@ -22,13 +22,12 @@
  */
 package org.mrcp4j.client;
 
-import static org.mrcp4j.message.MrcpMessage.CRLF;
-
-import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.MrcpEncoding;
 import org.mrcp4j.message.request.MrcpRequest;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Encodes {@link org.mrcp4j.message.request.MrcpRequest} instances into MRCPv2 specification format.
@@ -37,51 +36,53 @@ import java.io.PrintWriter;
  */
 public class MrcpRequestEncoder {
 
-    public void encode(MrcpRequest request, PrintWriter out) throws IOException {
-
-        StringBuilder messageBuffer = new StringBuilder();
-
-        // append request line
-        int offset = appendResponseLine(messageBuffer, request);
-
-        // append headers
-        for (MrcpHeader header : request.getHeaders()) {
-            messageBuffer.append(header.toString()).append(CRLF);
-        }
-
-        // append CRLF line
-        messageBuffer.append(CRLF);
+    public void encode(MrcpRequest request, OutputStream out) throws IOException {
+        out.write(encode(request));
+    }
 
-        // append message content if present
-        if (request.hasContent()) {
-            messageBuffer.append(request.getContent());
-        }
+    /**
+     * Encodes the request, setting its message-length.
+     * @param request the request to encode.
+     * @return the encoded request, exactly message-length bytes long.
+     */
+    public byte[] encode(MrcpRequest request) {
+        byte[] content = MrcpEncoding.getContentBytes(request);
 
-        // determine and set message length
-        int bufferLength = messageBuffer.length();
-        int bufferLengthLength = Integer.toString(bufferLength).length();
-        int messageLength = bufferLength + bufferLengthLength;
-        String messageLengthString = Integer.toString(messageLength);
-        if (messageLengthString.length() > bufferLengthLength) {
-            messageLengthString = Integer.toString(++messageLength);
-        }
-        messageBuffer.insert(offset, messageLengthString);
+        // determine message length before encoding
+        int length = requestLineLength(request) + MrcpEncoding.headersLength(request.getHeaders()) + 2 + content.length;
+        int messageLength = MrcpEncoding.messageLength(length);
         request.setMessageLength(messageLength);
-        bufferLength = messageBuffer.length();
 
-        // write message to out
-        out.print(messageBuffer.toString());
+        // write message into an array of the exact size
+        byte[] bytes = new byte[messageLength];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        putRequestLine(buf, request);
+        MrcpEncoding.putHeaders(buf, request.getHeaders());
+        MrcpEncoding.putCRLF(buf);
+        buf.put(content);
+        return bytes;
+    }
 
+    private static int requestLineLength(MrcpRequest request) {
+        return request.getVersion().length() + 1
+            + 1 + ((request.getMethodName() == null) ? request.getMethodNameAsString().length() : request.getMethodName().getEncodedLength())
+            + 1 + MrcpEncoding.digitCount(request.getRequestID())
+            + 2;
     }
 
-    private static int appendResponseLine(StringBuilder encodeBuf, MrcpRequest request) {
-        String version = request.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(request.getMethodNameAsString());
-        encodeBuf.append(' ').append(request.getRequestID());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    private static void putRequestLine(ByteBuffer buf, MrcpRequest request) {
+        MrcpEncoding.putVersion(buf, request.getVersion());
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, request.getMessageLength());
+        buf.put((byte) ' ');
+        if (request.getMethodName() == null) {
+            MrcpEncoding.putAscii(buf, request.getMethodNameAsString());
+        } else {
+            request.getMethodName().encodeTo(buf);
+        }
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, request.getRequestID());
+        MrcpEncoding.putCRLF(buf);
     }
 
 }
@@ -0,0 +1,157 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Tracks a request sent through {@link MrcpChannel#submitRequest(MrcpRequest)} until it reaches COMPLETE state.
+ *
+ * <p>The response future completes when the MRCP resource responds to the request.  The completion future completes
+ * with the event whose request-state is COMPLETE, or with null if the response itself was COMPLETE.  Both fail with
+ * a {@link MrcpInvocationException} if the response carries an error code, and with an {@link java.io.IOException}
+ * if the connection is lost.  Futures are completed on the handler thread that delivered the message.</p>
+ */
+public class MrcpRequestHandle {
+
+    private static Logger _log = LogManager.getLogger(MrcpRequestHandle.class);
+
+    private MrcpChannel _channel;
+    private MrcpRequest _request;
+    private CompletableFuture<MrcpResponse> _response = new CompletableFuture<MrcpResponse>();
+    private CompletableFuture<MrcpEvent> _completion = new CompletableFuture<MrcpEvent>();
+
+    // events received so far and listeners to notify of them, guarded by this
+    private List<MrcpEvent> _events = new ArrayList<MrcpEvent>();
+    private List<MrcpEventListener> _listeners = new ArrayList<MrcpEventListener>();
+
+    MrcpRequestHandle(MrcpChannel channel, MrcpRequest request) {
+        _channel = channel;
+        _request = request;
+    }
+
+    /**
+     * @return the request tracked by this handle.
+     */
+    public MrcpRequest getRequest() {
+        return _request;
+    }
+
+    /**
+     * @return a future completed with the response to the request.
+     */
+    public CompletableFuture<MrcpResponse> getResponse() {
+        return _response;
+    }
+
+    /**
+     * @return a future completed with the event completing the request, or with null if the response completed it.
+     */
+    public CompletableFuture<MrcpEvent> getCompletion() {
+        return _completion;
+    }
+
+    /**
+     * @return the events received for the request so far, in order of arrival.
+     */
+    public synchronized List<MrcpEvent> getEvents() {
+        return new ArrayList<MrcpEvent>(_events);
+    }
+
+    /**
+     * Gives up on the request.  Its futures fail with a {@link CancellationException} unless the request has already
+     * completed, and the response and events arriving later are no longer delivered to this handle.
+     * @param stop whether to send a STOP request so that the MRCP resource stops processing the request.
+     * @return a future completed with the response to the STOP request, or with null if none was sent because the
+     *         request had already completed or no STOP was requested.
+     */
+    public CompletableFuture<MrcpResponse> cancel(boolean stop) {
+        return _channel.abort(this, new CancellationException("Request cancelled"), stop);
+    }
+
+    /**
+     * Registers a listener notified of every event received for the request, including the COMPLETE event.  Events
+     * received before the listener was added are passed to it first, so no event is missed.
+     * @param listener instance to be notified of the events of the request.
+     */
+    public synchronized void addEventListener(MrcpEventListener listener) {
+        for (MrcpEvent event : _events) {
+            listener.eventReceived(event);
+        }
+        _listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added by {@link #addEventListener(MrcpEventListener)}.
+     * @param listener instance to be removed.
+     */
+    public synchronized void removeEventListener(MrcpEventListener listener) {
+        _listeners.remove(listener);
+    }
+
+    void responseReceived(MrcpResponse response) {
+        if (response.getStatusCode() > 299) {
+            MrcpInvocationException e = new MrcpInvocationException(response);
+            _response.completeExceptionally(e);
+            _completion.completeExceptionally(e);
+            return;
+        }
+        _response.complete(response);
+        if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+            _completion.complete(null);
+        }
+    }
+
+    // listeners are notified holding the handle lock, so they see events in order of arrival
+    void eventReceived(MrcpEvent event) {
+        synchronized (this) {
+            _events.add(event);
+            for (MrcpEventListener listener : _listeners) {
+                try {
+                    listener.eventReceived(event);
+                } catch (RuntimeException e) {
+                    _log.warn("eventReceived(): listener threw exception: ", e);
+                }
+            }
+        }
+        if (event.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+            _completion.complete(event);
+        }
+    }
+
+    void failed(Throwable cause) {
+        _response.completeExceptionally(cause);
+        _completion.completeExceptionally(cause);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolEncoderAdapter;
+import org.apache.mina.filter.codec.ProtocolEncoderException;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Encodes {@link org.mrcp4j.message.request.MrcpRequest} instances written to a MINA session, using
+ * {@link MrcpRequestEncoder}.
+ */
+public class MrcpRequestProtocolEncoder extends ProtocolEncoderAdapter {
+
+    private MrcpRequestEncoder _requestEncoder = new MrcpRequestEncoder();
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.filter.codec.ProtocolEncoder#encode(org.apache.mina.core.session.IoSession, java.lang.Object, org.apache.mina.filter.codec.ProtocolEncoderOutput)
+     */
+    public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
+        if (!(message instanceof MrcpRequest)) {
+            throw new ProtocolEncoderException("Unsupported message type: " + message.getClass().getName());
+        }
+        out.write(IoBuffer.wrap(_requestEncoder.encode((MrcpRequest) message)));
+    }
+
+}
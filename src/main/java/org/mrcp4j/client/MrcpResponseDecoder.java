@@ -24,8 +24,11 @@ package org.mrcp4j.client;
 
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpTokenizer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 /**
@@ -42,59 +45,83 @@ public class MrcpResponseDecoder {
     private static final int RESPONSE_LINE_REQUEST_STATE_PART  = 4;
     private static final int RESPONSE_LINE_PART_COUNT          = 5;
 
+    private int[] _responseLineParts = new int[RESPONSE_LINE_PART_COUNT * 2];
+
     public MrcpResponse createResponse(String responseLine) throws IOException, ParseException {
 
         if (responseLine == null || (responseLine = responseLine.trim()).length() < 1) {
             throw new ParseException("No response-line provided!", -1);
         }
 
-        String[] responseLineParts = responseLine.split(" ");
-        if (responseLineParts.length != RESPONSE_LINE_PART_COUNT) {
+        byte[] bytes = responseLine.getBytes(StandardCharsets.ISO_8859_1);
+        return createResponse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Creates a response from the response-line contained in the specified range of the buffer.
+     * @param buf buffer containing the response-line.
+     * @param from index of the first byte of the response-line.
+     * @param to index following the last byte of the response-line, leading and trailing whitespace is ignored.
+     * @return the response corresponding to the response-line.
+     * @throws ParseException if the response-line is not valid.
+     */
+    public MrcpResponse createResponse(ByteBuffer buf, int from, int to) throws ParseException {
+
+        from = MrcpTokenizer.trimStart(buf, from, to);
+        to = MrcpTokenizer.trimEnd(buf, from, to);
+        if (from == to) {
+            throw new ParseException("No response-line provided!", -1);
+        }
+
+        int[] parts = _responseLineParts;
+        if (MrcpTokenizer.tokenize(buf, from, to, parts) != RESPONSE_LINE_PART_COUNT) {
             throw new ParseException("Incorrect response-line format!", -1);
         }
 
         MrcpResponse response = new MrcpResponse();
 
         // mrcp-version
-        response.setVersion(responseLineParts[RESPONSE_LINE_MRCP_VERSION_PART]); //TODO: check if this matches request version, maybe at a higher level...
+        response.setVersion(MrcpTokenizer.toVersionString(buf, //TODO: check if this matches request version, maybe at a higher level...
+            parts[RESPONSE_LINE_MRCP_VERSION_PART * 2], parts[RESPONSE_LINE_MRCP_VERSION_PART * 2 + 1]));
 
         // message-length
         try {
-            response.setMessageLength(
-                Integer.parseInt(responseLineParts[RESPONSE_LINE_MESSAGE_LENGTH_PART])
-            );
+            response.setMessageLength(MrcpTokenizer.parseInt(buf,
+                parts[RESPONSE_LINE_MESSAGE_LENGTH_PART * 2], parts[RESPONSE_LINE_MESSAGE_LENGTH_PART * 2 + 1]));
         } catch (NumberFormatException e){
             throw new ParseException("Incorrect message-length format!", -1);
         }
 
         // request-id
         try {
-            response.setRequestID(
-                Long.parseLong(responseLineParts[RESPONSE_LINE_REQUEST_ID_PART])
-            );
+            response.setRequestID(MrcpTokenizer.parseLong(buf,
+                parts[RESPONSE_LINE_REQUEST_ID_PART * 2], parts[RESPONSE_LINE_REQUEST_ID_PART * 2 + 1]));
         } catch (NumberFormatException e){
             throw new ParseException("Incorrect request-id format!", -1);
         }
 
         // status-code
+        int statusCode;
         try {
-            response.setStatusCode(
-                Short.parseShort(responseLineParts[RESPONSE_LINE_STATUS_CODE_PART])
-            );
+            statusCode = MrcpTokenizer.parseInt(buf,
+                parts[RESPONSE_LINE_STATUS_CODE_PART * 2], parts[RESPONSE_LINE_STATUS_CODE_PART * 2 + 1]);
         } catch (NumberFormatException e){
             throw new ParseException("Incorrect status-code format!", -1);
         }
+        if (statusCode < Short.MIN_VALUE || statusCode > Short.MAX_VALUE) {
+            throw new ParseException("Incorrect status-code format!", -1);
+        }
+        response.setStatusCode((short) statusCode);
 
         // request-state
-        try {
-            response.setRequestState(
-                MrcpRequestState.fromString(responseLineParts[RESPONSE_LINE_REQUEST_STATE_PART])
-            );
-        } catch (IllegalArgumentException e){
-            throw (ParseException) new ParseException("Incorrect request-state format!", -1).initCause(e);
+        MrcpRequestState requestState = MrcpRequestState.find(buf,
+            parts[RESPONSE_LINE_REQUEST_STATE_PART * 2], parts[RESPONSE_LINE_REQUEST_STATE_PART * 2 + 1]);
+        if (requestState == null) {
+            throw new ParseException("Incorrect request-state format!", -1);
         }
+        response.setRequestState(requestState);
 
         return response;
     }
 
-}
\ No newline at end of file
+}
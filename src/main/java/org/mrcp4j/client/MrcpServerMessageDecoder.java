@@ -0,0 +1,83 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+import org.mrcp4j.message.MrcpFramedMessageDecoder;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpTokenizer;
+
+/**
+ * Decodes response and event messages received from an MRCPv2 server into {@link org.mrcp4j.message.MrcpResponse}
+ * and {@link org.mrcp4j.message.MrcpEvent} instances.
+ *
+ * <p>Messages are framed using the message-length field of the start-line, in the same way as requests are
+ * framed by {@link org.mrcp4j.server.MrcpRequestDecoder}.  Framing is done by {@link MrcpFramedMessageDecoder}.</p>
+ */
+public class MrcpServerMessageDecoder extends MrcpFramedMessageDecoder {
+
+    private static final int RESPONSE_LINE_REQUEST_ID_PART  = 2;
+    private static final int START_LINE_PART_COUNT          = 5;
+
+    private MrcpResponseDecoder _responseDecoder = new MrcpResponseDecoder();
+    private MrcpEventDecoder _eventDecoder = new MrcpEventDecoder();
+
+    // token bounds of the start-line, reused between messages
+    private int[] _startLineParts = new int[START_LINE_PART_COUNT * 2];
+
+    public MrcpServerMessageDecoder() {
+        this(DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * @param maxMessageLength largest message-length accepted for a single message.
+     */
+    public MrcpServerMessageDecoder(int maxMessageLength) {
+        super(maxMessageLength);
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.MrcpFramedMessageDecoder#createMessage(java.nio.ByteBuffer, int, int)
+     */
+    @Override
+    protected MrcpMessage createMessage(ByteBuffer buf, int from, int to) throws ParseException {
+        from = MrcpTokenizer.trimStart(buf, from, to);
+        to = MrcpTokenizer.trimEnd(buf, from, to);
+
+        // verify the start-line contains the correct number of parts
+        int[] parts = _startLineParts;
+        if (MrcpTokenizer.tokenize(buf, from, to, parts) != START_LINE_PART_COUNT) {
+            throw new ParseException("Incorrect start-line format!", -1);
+        }
+
+        // a response-line has the numeric request-id where an event-line has the event-name
+        if (MrcpMessageDecoder.isDigits(buf,
+                parts[RESPONSE_LINE_REQUEST_ID_PART * 2], parts[RESPONSE_LINE_REQUEST_ID_PART * 2 + 1])) {
+            return _responseDecoder.createResponse(buf, from, to);
+        }
+        return _eventDecoder.createEvent(buf, from, to);
+    }
+
+}
@@ -22,21 +22,21 @@
  */
 package org.mrcp4j.client;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.net.InetAddress;
-import java.net.Socket;
-import java.text.ParseException;
+import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.service.IoConnector;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
@@ -50,35 +50,61 @@ import org.mrcp4j.message.request.MrcpRequest;
  * for constructing an {@link org.mrcp4j.client.MrcpChannel} that can be used to send control messages to the media
  * resource on the MRCP server.</p>
  *
+ * <p>Each socket is a session of a MINA connector shared by all sockets of a provider, so messages from any number
+ * of MRCP servers are read by the connector's small pool of selector threads.  Message handlers are called on
+ * the provider's handler threads, one message at a time for each socket, so a handler that blocks delays the
+ * following messages of its own socket only.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpSocket {
 
 	private static Logger _log = LogManager.getLogger(MrcpSocket.class);
 
-    private MrcpRequestEncoder _requestEncoder = new MrcpRequestEncoder();
+    private static final AttributeKey SOCKET = new AttributeKey(MrcpSocket.class, "socket");
+
+    // socket whose received message is being dispatched by the current thread
+    private static final ThreadLocal<MrcpSocket> DISPATCHING = new ThreadLocal<MrcpSocket>();
+
     Map<ChannelIdentifier , MrcpMessageHandler> _handlers = Collections.synchronizedMap(new HashMap<ChannelIdentifier , MrcpMessageHandler>());
 
-    private Socket _socket;
-    BufferedReader _in;
-    private PrintWriter _out;
+    private IoSession _session;
 
-    MrcpSocket(InetAddress host, int port) throws IOException {
-        _socket = new Socket(host, port);
-        _in = new BufferedReader(new InputStreamReader(_socket.getInputStream()));
-        _out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(_socket.getOutputStream())));
-        new ReadThread().start();
+    MrcpSocket(IoSession session) {
+        _session = session;
+        _session.setAttribute(SOCKET, this);
     }
 
-    public void sendRequest(MrcpRequest request) throws IOException {
-        try {
-            _requestEncoder.encode(request, _out);
-            _out.flush();
-        } catch (IOException e){
-            // TODO: may need to reset socket here...
-            _log.debug(e, e);
-            throw e;
+    /**
+     * Opens a connection to an MRCP server.
+     * @param connector the connector establishing the connection, which must use {@link MrcpClientCodecFactory}
+     *        and {@link ClientHandler}.
+     * @param host the host of the MRCP server.
+     * @param port the port of the MRCP server.
+     * @return the connected socket.
+     * @throws IOException if the connection could not be established.
+     */
+    static MrcpSocket connect(IoConnector connector, InetAddress host, int port) throws IOException {
+        ConnectFuture future = connector.connect(new InetSocketAddress(host, port));
+        future.awaitUninterruptibly();
+        if (!future.isConnected()) {
+            Throwable cause = future.getException();
+            throw (IOException) new IOException("Could not connect to MRCP server at " + host + ':' + port).initCause(cause);
         }
+        return new MrcpSocket(future.getSession());
+    }
+
+    /**
+     * Queues a request for writing to the MRCP server.
+     * @param request the request to send.
+     * @return the future of the write, which tells whether the request reached the connection.
+     * @throws IOException if the connection is closed.
+     */
+    public WriteFuture sendRequest(MrcpRequest request) throws IOException {
+        if (_session.isClosing()) {
+            throw new IOException("Connection to MRCP server is closed: " + _session.getRemoteAddress());
+        }
+        return _session.write(request);
     }
 
     public void addMessageHandler(ChannelIdentifier channelID, MrcpMessageHandler handler) {
@@ -88,42 +114,108 @@ public class MrcpSocket {
     public void removeMessageHandler(ChannelIdentifier channelID) {
         _handlers.remove(channelID);
     }
-    
-    private class ReadThread extends Thread {
 
-        private MrcpMessageDecoder _messageDecoder = new MrcpMessageDecoder();
+    /**
+     * @return true if the connection to the MRCP server has been closed or is closing.
+     */
+    public boolean isClosed() {
+        return _session.isClosing();
+    }
+
+    /**
+     * Closes the connection to the MRCP server.
+     */
+    public void close() {
+        _session.closeNow();
+    }
+
+    /**
+     * @return true if the current thread is delivering a message received on this socket, in which case it
+     *         cannot wait for another message of the socket.
+     */
+    boolean isDispatchThread() {
+        return DISPATCHING.get() == this;
+    }
+
+    /**
+     * Fails the pending requests of the channels of this socket.
+     * @param cause the error the connection was closed for, or null if it was closed normally.
+     */
+    private void connectionClosed(Throwable cause) {
+        MrcpMessageHandler[] handlers;
+        synchronized (_handlers) {
+            handlers = _handlers.values().toArray(new MrcpMessageHandler[_handlers.size()]);
+        }
+        for (MrcpMessageHandler handler : handlers) {
+            if (handler instanceof MrcpChannel) {
+                ((MrcpChannel) handler).connectionClosed(cause);
+            }
+        }
+    }
+
+    private void dispatch(MrcpMessage message) throws IllegalValueException {
+        ChannelIdentifier channelID = message.getChannelIdentifier();
+        MrcpMessageHandler handler = _handlers.get(channelID);
+        if (handler != null) {
+            handler.handleMessage(message);
+        } else if (_log.isDebugEnabled()) {
+            _log.debug("No handler found for channel: " + channelID);
+        }
+    }
+
+    /**
+     * Passes the messages received on the sessions of a connector to the message handlers of their socket.
+     */
+    static class ClientHandler extends IoHandlerAdapter {
 
         /* (non-Javadoc)
-         * @see java.lang.Runnable#run()
+         * @see org.apache.mina.core.service.IoHandlerAdapter#messageReceived(org.apache.mina.core.session.IoSession, java.lang.Object)
          */
         @Override
-        public void run() {
-            boolean run = true;
-            while (run) {
-                // TODO: switch to nio so that the following statement doesn't block forever when the socket is closed
-                try {
-                    MrcpMessage message = _messageDecoder.decode(_in);
-                    ChannelIdentifier channelID = message.getChannelIdentifier();
-                    MrcpMessageHandler handler = _handlers.get(channelID);
-                    if (handler != null) {
-                        handler.handleMessage(message);
-                    } else if (_log.isDebugEnabled()) {
-                        _log.debug("No handler found for channel: " + channelID);
-                    }
-                } catch (IOException e) {
-                    // TODO Auto-generated catch block
-                    run = false;
-                    _log.warn(e, e);
-                } catch (ParseException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
-                } catch (IllegalValueException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
-                }
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            MrcpSocket socket = (MrcpSocket) session.getAttribute(SOCKET);
+            if (socket == null) {
+                _log.warn("Message received before the connection was established: " + message);
+                return;
+            }
+            DISPATCHING.set(socket);
+            try {
+                socket.dispatch((MrcpMessage) message);
+            } catch (IllegalValueException e) {
+                _log.warn(e, e);
+            } finally {
+                DISPATCHING.remove();
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see org.apache.mina.core.service.IoHandlerAdapter#exceptionCaught(org.apache.mina.core.session.IoSession, java.lang.Throwable)
+         */
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) {
+            _log.warn(cause, cause);
+            // a message-length framed stream cannot be resynchronized after a malformed message
+            session.closeNow();
+            MrcpSocket socket = (MrcpSocket) session.getAttribute(SOCKET);
+            if (socket != null) {
+                socket.connectionClosed(cause);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see org.apache.mina.core.service.IoHandlerAdapter#sessionClosed(org.apache.mina.core.session.IoSession)
+         */
+        @Override
+        public void sessionClosed(IoSession session) {
+            if (_log.isDebugEnabled()) {
+                _log.debug("Connection to MRCP server closed: " + session.getRemoteAddress());
+            }
+            MrcpSocket socket = (MrcpSocket) session.getAttribute(SOCKET);
+            if (socket != null) {
+                socket.connectionClosed(null);
             }
         }
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import org.mrcp4j.message.header.MrcpHeader;
+
+/**
+ * Writes MRCPv2 message tokens directly into a byte buffer.
+ *
+ * <p>Start-line tokens, header names and header values are written one byte per character, the message
+ * body is written using the charset of its content type.  The <code>xxxLength</code> methods return the
+ * exact number of bytes the corresponding <code>putXxx</code> method writes, so the size of a message
+ * can be computed before it is encoded.</p>
+ */
+public final class MrcpEncoding {
+
+    /**
+     * Charset used for message bodies whose content type does not specify one.
+     */
+    public static final Charset DEFAULT_CONTENT_CHARSET = StandardCharsets.UTF_8;
+
+    private static final int CRLF_LENGTH = 2;
+
+    private static final byte[] EMPTY_CONTENT = new byte[0];
+
+    private static final byte[] MRCP_VERSION_2_0_BYTES = MrcpMessage.MRCP_VERSION_2_0.getBytes(StandardCharsets.US_ASCII);
+
+    private MrcpEncoding() {
+        // restrict instance initialization to private access
+    }
+
+    /**
+     * Determines the message-length of a message, which includes the digits of the message-length itself.
+     * @param length the length of the encoded message excluding the message-length digits.
+     * @return the message-length value.
+     */
+    public static int messageLength(int length) {
+        int messageLength = length + digitCount(length);
+        if (digitCount(messageLength) > digitCount(length)) {
+            messageLength++;
+        }
+        return messageLength;
+    }
+
+    /**
+     * @return the number of characters in the decimal representation of the value, including any minus sign.
+     */
+    public static int digitCount(long value) {
+        if (value < 0) {
+            return (value == Long.MIN_VALUE) ? 20 : digitCount(-value) + 1;
+        }
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bytes {@link #putHeaders(ByteBuffer, Collection)} writes for the headers.
+     */
+    public static int headersLength(Collection<MrcpHeader> headers) {
+        int length = 0;
+        for (MrcpHeader header : headers) {
+            length += header.getEncodedLength() + CRLF_LENGTH;
+        }
+        return length;
+    }
+
+    /**
+     * Writes each header as <code>name:value CRLF</code>.
+     */
+    public static void putHeaders(ByteBuffer buf, Collection<MrcpHeader> headers) {
+        for (MrcpHeader header : headers) {
+            header.encodeTo(buf);
+            putCRLF(buf);
+        }
+    }
+
+    /**
+     * Writes the characters of the string one byte per character.
+     */
+    public static void putAscii(ByteBuffer buf, CharSequence str) {
+        for (int i = 0, n = str.length(); i < n; i++) {
+            buf.put((byte) str.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the decimal representation of the value, occupying exactly {@link #digitCount(long)} bytes.
+     */
+    public static void putNumber(ByteBuffer buf, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                putAscii(buf, Long.toString(value));
+                return;
+            }
+            buf.put((byte) '-');
+            value = -value;
+        }
+        int end = buf.position() + digitCount(value);
+        for (int i = end - 1; i >= buf.position(); i--) {
+            buf.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.position(end);
+    }
+
+    /**
+     * Writes the version, using pre-encoded bytes for {@link MrcpMessage#MRCP_VERSION_2_0}.
+     */
+    public static void putVersion(ByteBuffer buf, String version) {
+        if (MrcpMessage.MRCP_VERSION_2_0.equals(version)) {
+            buf.put(MRCP_VERSION_2_0_BYTES);
+        } else {
+            putAscii(buf, version);
+        }
+    }
+
+    public static void putCRLF(ByteBuffer buf) {
+        buf.put(MrcpTokenizer.CR).put(MrcpTokenizer.LF);
+    }
+
+    /**
+     * @return the body of the message encoded with its content charset, or an empty array if there is no body.
+     */
+    public static byte[] getContentBytes(MrcpMessage message) {
+        byte[] content = message.getContentBytes();
+        return (content == null) ? EMPTY_CONTENT : content;
+    }
+
+    /**
+     * Determines the charset specified by the <code>charset</code> parameter of a MIME content type.
+     * @param contentType the content type, may be null.
+     * @return the charset specified, or {@link #DEFAULT_CONTENT_CHARSET} if none or an unsupported charset was specified.
+     */
+    public static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            int index = contentType.toLowerCase().indexOf("charset=");
+            if (index >= 0) {
+                String name = contentType.substring(index + "charset=".length());
+                int end = name.indexOf(';');
+                name = ((end < 0) ? name : name.substring(0, end)).trim();
+                if (name.length() > 1 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+                    name = name.substring(1, name.length() - 1);
+                }
+                try {
+                    return Charset.forName(name);
+                } catch (IllegalArgumentException e) {
+                    // fall through to default
+                }
+            }
+        }
+        return DEFAULT_CONTENT_CHARSET;
+    }
+
+}
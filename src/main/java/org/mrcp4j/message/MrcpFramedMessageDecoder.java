@@ -0,0 +1,208 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.CumulativeProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Base class for decoders of MRCPv2 messages framed by the message-length field of their start-line.
+ *
+ * <p>A message that is split across several reads is accumulated until it is complete, and several pipelined
+ * messages contained in a single read are all decoded in one pass.  Subclasses only parse the start-line,
+ * the message-header and body are decoded the same way for every message type.</p>
+ */
+public abstract class MrcpFramedMessageDecoder extends CumulativeProtocolDecoder {
+
+    private static Logger _log = LogManager.getLogger(MrcpFramedMessageDecoder.class);
+
+    /**
+     * Default upper limit for the message-length of a single message.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 8 * 1024 * 1024;
+
+    /**
+     * Upper limit for the length of a start-line, used to reject garbage before the message-length is known.
+     */
+    private static final int MAX_START_LINE_LENGTH = 1024;
+
+    private int _maxMessageLength;
+
+    // message whose start-line has been parsed but whose remaining bytes have not all arrived yet
+    private MrcpMessage _pendingMessage;
+    private int _pendingLineLength;
+
+    /**
+     * @param maxMessageLength largest message-length accepted for a single message.
+     */
+    protected MrcpFramedMessageDecoder(int maxMessageLength) {
+        _maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * Creates a message from its start-line, with the message-length set.
+     * @param buf buffer containing the start-line.
+     * @param from index of the first byte of the start-line.
+     * @param to index following the last byte of the start-line, leading and trailing whitespace is ignored.
+     * @return the message corresponding to the start-line.
+     * @throws ParseException if the start-line is not valid.
+     */
+    protected abstract MrcpMessage createMessage(ByteBuffer buf, int from, int to) throws ParseException;
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.filter.codec.CumulativeProtocolDecoder#doDecode(org.apache.mina.core.session.IoSession, org.apache.mina.core.buffer.IoBuffer, org.apache.mina.filter.codec.ProtocolDecoderOutput)
+     */
+    @Override
+    protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
+      throws Exception {
+
+        if (_pendingMessage == null) {
+
+            // skip any empty lines preceding the start-line
+            while (in.hasRemaining()) {
+                byte b = in.get(in.position());
+                if (b != '\r' && b != '\n') {
+                    break;
+                }
+                in.get();
+            }
+
+            // wait until the complete start-line is available
+            int start = in.position();
+            int lineEnd = MrcpTokenizer.indexOf(in.buf(), start, in.limit(), MrcpTokenizer.LF);
+            if (lineEnd < 0) {
+                if (in.remaining() > MAX_START_LINE_LENGTH) {
+                    throw new ProtocolDecoderException("Start-line exceeds " + MAX_START_LINE_LENGTH + " bytes!");
+                }
+                return false;
+            }
+
+            // create message from start-line, remembering it until the rest of the message has arrived
+            try {
+                MrcpMessage message = createMessage(in.buf(), start, lineEnd);
+                int messageLength = message.getMessageLength();
+                if (messageLength < lineEnd + 1 - start) {
+                    throw new ParseException("Incorrect message-length: " + messageLength, -1);
+                }
+                if (messageLength > _maxMessageLength) {
+                    throw new ParseException("Message-length " + messageLength + " exceeds maximum of " + _maxMessageLength, -1);
+                }
+                _pendingMessage = message;
+                _pendingLineLength = lineEnd + 1 - start;
+            } catch (ParseException e) {
+                //TODO: return 408 response to client?
+                _log.debug(e, e);
+                throw new ProtocolDecoderException(e.getMessage(), e);
+            }
+            in.position(start);
+        }
+
+        // wait until the complete message is available
+        MrcpMessage message = _pendingMessage;
+        if (in.remaining() < message.getMessageLength()) {
+            return false;
+        }
+        _pendingMessage = null;
+
+        // decode the rest of the message without reading past its end
+        int limit = in.limit();
+        int frameEnd = in.position() + message.getMessageLength();
+        in.position(in.position() + _pendingLineLength);
+        in.limit(frameEnd);
+        try {
+            decodeMessage(message, in);
+        } catch (ParseException e) {
+            _log.debug(e, e);
+            throw new ProtocolDecoderException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            _log.debug(e, e);
+            throw e;
+        } finally {
+            in.limit(limit);
+            in.position(frameEnd);
+        }
+
+        out.write(message);
+        return true;
+    }
+
+    private static void decodeMessage(MrcpMessage message, IoBuffer in) throws ParseException, ProtocolDecoderException {
+        ByteBuffer buf = in.buf();
+        int end = in.limit();
+
+        // read message-header
+        int pos = in.position();
+        for (;;) {
+            int lineEnd = MrcpTokenizer.indexOf(buf, pos, end, MrcpTokenizer.LF);
+            if (lineEnd < 0) {
+                lineEnd = end;
+            }
+            int from = MrcpTokenizer.trimStart(buf, pos, lineEnd);
+            int to = MrcpTokenizer.trimEnd(buf, from, lineEnd);
+            pos = Math.min(lineEnd + 1, end);
+            if (from == to) {
+                break;
+            }
+
+            // TODO: handle multi-line headers
+            int index = MrcpTokenizer.indexOf(buf, from, to, MrcpTokenizer.COLON);
+            if (index <= from) {
+                throw new ParseException("Incorrect message-header format!", -1);
+            }
+            String value = MrcpTokenizer.toAsciiString(buf, MrcpTokenizer.trimStart(buf, index + 1, to), to);
+            message.addHeader(MrcpHeaderName.createHeader(buf, from, index, value));
+        }
+
+        // read message body if present
+        MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
+        int contentLength = 0;
+        try {
+            contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
+        } catch (IllegalValueException e) {
+            throw new ProtocolDecoderException(e.getMessage(), e);
+        }
+        if (contentLength > end - pos) {
+            throw new ParseException("Content-length " + contentLength + " exceeds message-length!", -1);
+        }
+        if (contentLength > 0) {
+            byte[] content = new byte[contentLength];
+            buf.position(pos);
+            buf.get(content);
+            message.setContent(content);
+            pos += contentLength;
+        }
+        in.position(pos);
+    }
+
+}
@@ -31,9 +31,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
 /**
  *
@@ -48,8 +50,16 @@ public abstract class MrcpMessage {
     private int _messageLength = -1;
     private long _requestID = -1;
 
-    private Map<String, MrcpHeader> _headers = new LinkedHashMap<String, MrcpHeader>();
+    private static final int STANDARD_HEADER_COUNT = MrcpHeaderName.values().length;
 
+    // all headers in insertion order, vendor specific headers are only held here
+    private List<MrcpHeader> _headers = new ArrayList<MrcpHeader>(8);
+
+    // standard headers indexed by MrcpHeaderName ordinal, allocated when the first one is added
+    private MrcpHeader[] _standardHeaders;
+
+    // the body is held as bytes, the string view is decoded with the content charset when first requested
+    private byte[] _contentBytes;
     private String _content;
 
     public void setVersion(String version) {
@@ -77,29 +87,88 @@ public abstract class MrcpMessage {
     }
 
     public void addHeader(MrcpHeader header) {
-        if (header != null) {
-            _headers.put(header.getNameString(), header);
+        if (header == null) {
+            return;
+        }
+        MrcpHeaderName name = headerName(header);
+        MrcpHeader old;
+        if (name == null) {
+            old = findVendorHeader(header.getNameString());
+        } else {
+            if (_standardHeaders == null) {
+                _standardHeaders = new MrcpHeader[STANDARD_HEADER_COUNT];
+            }
+            old = _standardHeaders[name.ordinal()];
+            _standardHeaders[name.ordinal()] = header;
+        }
+        if (old == null) {
+            _headers.add(header);
+        } else {
+            // replacing a header keeps its original position
+            _headers.set(indexOf(old), header);
         }
     }
 
     public MrcpHeader getHeader(MrcpHeaderName name) {
-        return _headers.get(name.toString());
+        return (_standardHeaders == null) ? null : _standardHeaders[name.ordinal()];
     }
 
     public MrcpHeader getHeader(String name) {
-        return _headers.get(name);
+        MrcpHeaderName headerName = MrcpHeaderName.find(name);
+        return (headerName == null) ? findVendorHeader(name) : getHeader(headerName);
     }
 
     public MrcpHeader removeHeader(MrcpHeaderName name) {
-        return removeHeader(name.toString());
+        MrcpHeader header = getHeader(name);
+        if (header != null) {
+            _standardHeaders[name.ordinal()] = null;
+            _headers.remove(indexOf(header));
+        }
+        return header;
     }
 
     public MrcpHeader removeHeader(String name) {
-        return _headers.remove(name);
+        MrcpHeaderName headerName = MrcpHeaderName.find(name);
+        if (headerName != null) {
+            return removeHeader(headerName);
+        }
+        MrcpHeader header = findVendorHeader(name);
+        if (header != null) {
+            _headers.remove(indexOf(header));
+        }
+        return header;
     }
 
+    /**
+     * @return an unmodifiable view of the headers of this message, in the order they were added.
+     */
     public Collection<MrcpHeader> getHeaders() {
-        return _headers.values();
+        return Collections.unmodifiableList(_headers);
+    }
+
+    // vendor specific headers constructed with a standard field-name are stored as standard headers
+    private static MrcpHeaderName headerName(MrcpHeader header) {
+        MrcpHeaderName name = header.getHeaderName();
+        return (name == null) ? MrcpHeaderName.find(header.getNameString()) : name;
+    }
+
+    private MrcpHeader findVendorHeader(String name) {
+        for (int i = 0; i < _headers.size(); i++) {
+            MrcpHeader header = _headers.get(i);
+            if (header.getHeaderName() == null && name != null && name.equals(header.getNameString())) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    private int indexOf(MrcpHeader header) {
+        for (int i = 0; i < _headers.size(); i++) {
+            if (_headers.get(i) == header) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -110,7 +179,7 @@ public abstract class MrcpMessage {
      * @throws IOException if the URL cannot be opened
      */
     public void setContent(String contentType, String contentId, URL content) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(content.openStream()));
+        BufferedReader in = new BufferedReader(new InputStreamReader(content.openStream(), MrcpEncoding.getCharset(contentType)));
         
         StringBuilder sb = new StringBuilder();
         String line = null;
@@ -143,12 +212,47 @@ public abstract class MrcpMessage {
         }
 
         content = content.concat(CRLF);
-        int contentLength = content.length();
+        byte[] contentBytes = content.getBytes(MrcpEncoding.getCharset(contentType));
+        setContentHeaders(contentType, contentId, contentBytes.length);
+
+        _contentBytes = contentBytes;
+        _content = content;
+    }
+
+    /**
+     * Sets the content for the body of the message as well as any applicable headers.  The bytes are sent
+     * as is, they should be encoded with the charset specified by the content type if it is textual.
+     * @param contentType the MIME type of the content. (required)
+     * @param contentId the ID of the content. (optional)
+     * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
+     */
+    public void setContent(String contentType, String contentId, byte[] content) {
+        if (content == null || content.length < 1) {
+            throw new IllegalArgumentException(
+                "Cannot add zero length or null content, to remove content use removeContent() instead!");
+        }
+
+        if (contentType == null || (contentType = contentType.trim()).length() < 1) {
+            throw new IllegalArgumentException(
+                "contentType is a required parameter, must not be null or zero length");
+        }
+
+        if (contentId != null && (contentId = contentId.trim()).length() < 1) {
+            contentId = null;
+        }
+
+        setContentHeaders(contentType, contentId, content.length);
+
+        _contentBytes = content;
+        _content = null;
+    }
+
+    private void setContentHeaders(String contentType, String contentId, int contentLength) {
 
         // construct applicable headers
         MrcpHeader contentTypeHeader = MrcpHeaderName.CONTENT_TYPE.constructHeader(contentType);
         MrcpHeader contentIdHeader = (contentId == null) ? null : MrcpHeaderName.CONTENT_ID.constructHeader(contentId);
-        MrcpHeader contentLengthHeader = MrcpHeaderName.CONTENT_LENGTH.constructHeader(new Integer(contentLength));
+        MrcpHeader contentLengthHeader = MrcpHeaderName.CONTENT_LENGTH.constructHeader(Integer.valueOf(contentLength));
 
         // clean-up any old headers
         removeHeader(MrcpHeaderName.CONTENT_TYPE);
@@ -159,8 +263,6 @@ public abstract class MrcpMessage {
         addHeader(contentTypeHeader);
         addHeader(contentIdHeader);
         addHeader(contentLengthHeader);
-
-        _content = content;
     }
 
     /**
@@ -173,6 +275,7 @@ public abstract class MrcpMessage {
         removeHeader(MrcpHeaderName.CONTENT_ID);
         removeHeader(MrcpHeaderName.CONTENT_LENGTH);
 
+        _contentBytes = null;
         _content = null;
     }
 
@@ -183,24 +286,51 @@ public abstract class MrcpMessage {
      * @param content the body of the message.
      */
     public void setContent(String content) {
+        _contentBytes = null;
         _content = content;
     }
 
+    /**
+     * Method for setting the raw content of the message if the content type, id and length headers
+     * have already been set.  Provided primarly for use while decoding messages objects from a
+     * MRCP message stream.  MRCP4J clients generally should not use this method.
+     * @param content the body of the message, encoded with the charset specified by the content type.
+     */
+    public void setContent(byte[] content) {
+        _contentBytes = content;
+        _content = null;
+    }
+
     /**
      * @return true if this message has content in the body of the message.
      */
     public boolean hasContent() {
-        return _content != null;
+        return _contentBytes != null || _content != null;
     }
 
     /**
      * TODOC
-     * @return Returns the content.
+     * @return Returns the content, decoded with the charset specified by the content type.
      */
     public String getContent() {
+        if (_content == null && _contentBytes != null) {
+            _content = new String(_contentBytes, getContentCharset());
+        }
         return _content;
     }
 
+    /**
+     * Returns the body of the message as bytes, encoded with the charset specified by the content type
+     * if the content was set as a string.  The returned array must not be modified.
+     * @return the body of the message, or null if the message has no content.
+     */
+    public byte[] getContentBytes() {
+        if (_contentBytes == null && _content != null) {
+            _contentBytes = _content.getBytes(getContentCharset());
+        }
+        return _contentBytes;
+    }
+
     /**
      * @return the type of the content of the message or null if not set.
      */
@@ -209,6 +339,13 @@ public abstract class MrcpMessage {
         return (header == null) ? null : header.getValueString();
     }
 
+    /**
+     * @return the charset specified by the content type of the message, or UTF-8 if none is specified.
+     */
+    public Charset getContentCharset() {
+        return MrcpEncoding.getCharset(getContentType());
+    }
+
     /**
      * @return the channel identifier associated with this message or null if it has not been set or was set with an invalid value.
      * @throws IllegalValueException if an illegal value has been specified for the channel-identifier header.
@@ -228,7 +365,7 @@ public abstract class MrcpMessage {
         StringBuilder sb = appendStartLine(new StringBuilder());
 
         // append headers
-        for (MrcpHeader header : _headers.values()) {
+        for (MrcpHeader header : _headers) {
             header.appendTo(sb);
             sb.append(CRLF);
         }
@@ -22,6 +22,7 @@
  */
 package org.mrcp4j.message;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -131,6 +132,37 @@ public class MrcpResponse extends MrcpServerMessage {
     	return statusDesc.get(_statusCode);    	
     }
 
+    // US-ASCII digits of every three digit status code, three bytes per code starting at 100
+    private static final byte[] STATUS_CODE_BYTES = new byte[900 * 3];
+
+    static {
+        for (int code = 100; code < 1000; code++) {
+            int i = (code - 100) * 3;
+            STATUS_CODE_BYTES[i]     = (byte) ('0' + code / 100);
+            STATUS_CODE_BYTES[i + 1] = (byte) ('0' + code / 10 % 10);
+            STATUS_CODE_BYTES[i + 2] = (byte) ('0' + code % 10);
+        }
+    }
+
+    /**
+     * @return the number of bytes written by {@link #encodeStatusCodeTo(ByteBuffer)}.
+     */
+    public int getEncodedStatusCodeLength() {
+        return (_statusCode >= 100 && _statusCode < 1000) ? 3 : MrcpEncoding.digitCount(_statusCode);
+    }
+
+    /**
+     * Writes the status code as US-ASCII digits to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeStatusCodeTo(ByteBuffer buf) {
+        if (_statusCode >= 100 && _statusCode < 1000) {
+            buf.put(STATUS_CODE_BYTES, (_statusCode - 100) * 3, 3);
+        } else {
+            MrcpEncoding.putNumber(buf, _statusCode);
+        }
+    }
+
     @Override
     protected final StringBuilder appendStartLine(StringBuilder sb) {
         sb.append(getVersion());
@@ -0,0 +1,193 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Scans MRCPv2 start-lines and header lines directly in a byte buffer.
+ *
+ * <p>All methods work on absolute positions within the buffer and never modify its position or limit,
+ * so numeric fields such as message-length, request-id and status-code can be parsed without creating
+ * intermediate strings.</p>
+ */
+public final class MrcpTokenizer {
+
+    public static final byte CR = '\r';
+    public static final byte LF = '\n';
+    public static final byte SP = ' ';
+    public static final byte COLON = ':';
+
+    private static final byte[] MRCP_VERSION_2_0_BYTES = MrcpMessage.MRCP_VERSION_2_0.getBytes(StandardCharsets.US_ASCII);
+
+    private MrcpTokenizer() {
+        // restrict instance initialization to private access
+    }
+
+    /**
+     * @return the index of the first occurrence of <code>b</code> in the range, or -1 if not found.
+     */
+    public static int indexOf(ByteBuffer buf, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first byte in the range that is not whitespace (as defined by {@link String#trim()}).
+     */
+    public static int trimStart(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xff) <= SP) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return the index following the last byte in the range that is not whitespace (as defined by {@link String#trim()}).
+     */
+    public static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && (buf.get(to - 1) & 0xff) <= SP) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Splits the range at every space character, storing the start and end index of token <i>n</i> at
+     * <code>bounds[2n]</code> and <code>bounds[2n+1]</code>.
+     * @return the number of tokens found, or -1 if there are more tokens than fit in <code>bounds</code>.
+     */
+    public static int tokenize(ByteBuffer buf, int from, int to, int[] bounds) {
+        int count = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buf.get(i) == SP) {
+                if (count * 2 >= bounds.length) {
+                    return -1;
+                }
+                bounds[count * 2] = start;
+                bounds[count * 2 + 1] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses a decimal integer in the same format accepted by {@link Integer#parseInt(String)}.
+     * @throws NumberFormatException if the range does not contain a parsable integer.
+     */
+    public static int parseInt(ByteBuffer buf, int from, int to) throws NumberFormatException {
+        long value = parseLong(buf, from, to);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormatException(buf, from, to);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a decimal integer in the same format accepted by {@link Long#parseLong(String)}.
+     * @throws NumberFormatException if the range does not contain a parsable long.
+     */
+    public static long parseLong(ByteBuffer buf, int from, int to) throws NumberFormatException {
+        if (from >= to) {
+            throw numberFormatException(buf, from, to);
+        }
+
+        int i = from;
+        byte first = buf.get(i);
+        boolean negative = (first == '-');
+        if (negative || first == '+') {
+            if (++i == to) {
+                throw numberFormatException(buf, from, to);
+            }
+        }
+
+        // accumulate negatively to cover the full range of long
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < (Long.MIN_VALUE + digit) / 10) {
+                throw numberFormatException(buf, from, to);
+            }
+            result = result * 10 - digit;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw numberFormatException(buf, from, to);
+            }
+            result = -result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the version string for the range, reusing {@link MrcpMessage#MRCP_VERSION_2_0} when it matches.
+     */
+    public static String toVersionString(ByteBuffer buf, int from, int to) {
+        if (to - from == MRCP_VERSION_2_0_BYTES.length) {
+            int i = 0;
+            while (i < MRCP_VERSION_2_0_BYTES.length && buf.get(from + i) == MRCP_VERSION_2_0_BYTES[i]) {
+                i++;
+            }
+            if (i == MRCP_VERSION_2_0_BYTES.length) {
+                return MrcpMessage.MRCP_VERSION_2_0;
+            }
+        }
+        return toAsciiString(buf, from, to);
+    }
+
+    /**
+     * @return the range decoded as a string, one character per byte.
+     */
+    public static String toAsciiString(ByteBuffer buf, int from, int to) {
+        return toString(buf, from, to, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return the range decoded as a string using the specified charset.
+     */
+    public static String toString(ByteBuffer buf, int from, int to, Charset charset) {
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + from, to - from, charset);
+        }
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(from + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private static NumberFormatException numberFormatException(ByteBuffer buf, int from, int to) {
+        return new NumberFormatException("For input string: \"" + toAsciiString(buf, from, to) + "\"");
+    }
+
+}
@@ -22,6 +22,8 @@
  */
 package org.mrcp4j.message.header;
 
+import java.nio.charset.StandardCharsets;
+
 import org.mrcp4j.MrcpResourceType;
 
 /**
@@ -33,6 +35,7 @@ public class ChannelIdentifier {
     private String _channelID;
     private MrcpResourceType _resourceType;
     private String _valueString;
+    private volatile byte[] _encodedHeader;
 
     public ChannelIdentifier(String channelID, MrcpResourceType type) {
         this(channelID, type, constructValueString(channelID, type));
@@ -55,6 +58,18 @@ public class ChannelIdentifier {
         return _resourceType;
     }
 
+    /**
+     * @return the complete Channel-Identifier header line (without CRLF) for this value, encoded once and cached.
+     */
+    byte[] getEncodedHeader() {
+        byte[] encoded = _encodedHeader;
+        if (encoded == null) {
+            encoded = (MrcpHeaderName.CHANNEL_IDENTIFIER.toString() + ':' + _valueString).getBytes(StandardCharsets.ISO_8859_1);
+            _encodedHeader = encoded;
+        }
+        return encoded;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -110,7 +125,10 @@ public class ChannelIdentifier {
             if (tokens.length != 2) {
                 throw new IllegalValueException("Illegal Channel-Identifier value: " + valueString);
             }
-            MrcpResourceType resourceType = MrcpResourceType.fromString(tokens[1].trim());
+            MrcpResourceType resourceType = MrcpResourceType.find(tokens[1].trim());
+            if (resourceType == null) {
+                throw new IllegalValueException("Illegal Channel-Identifier resource type: " + valueString);
+            }
             return new ChannelIdentifier(tokens[0].trim(), resourceType, valueString);
         }
 
@@ -46,10 +46,9 @@ public class GenericValueFactory extends BaseValueFactory {
      * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
      */
     public Object fromValueString(String valueString) throws IllegalValueException {
+        Object valueObject = null;
         try {
-            Object valueObject = _constructor.newInstance(valueString);
-            validateObject(valueObject);
-            return valueObject;
+            valueObject = _constructor.newInstance(valueString);
         } catch (InvocationTargetException e) {
             Throwable cause = e.getCause();
             if (cause instanceof Error) {
@@ -63,6 +62,8 @@ public class GenericValueFactory extends BaseValueFactory {
         } catch (Exception e) {
             throw new Error(e);
         }
+        validateObject(valueObject);
+        return valueObject;
     }
 
 }
\ No newline at end of file
@@ -22,15 +22,26 @@
  */
 package org.mrcp4j.message.header;
 
+import java.nio.ByteBuffer;
+
+import org.mrcp4j.message.MrcpEncoding;
+
 /**
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpHeader {
 
+    // marks a value string that has not been parsed yet
+    private static final Object UNPARSED = new Object();
+
+    // marks a value held in primitive form, boxed only when the value object is requested
+    private static final Object PRIMITIVE = new Object();
+
     private MrcpHeaderName _name;
     private String _valueString;
-    private Object _valueObject;
+    private volatile Object _valueObject;
+    private long _primitive;
     
     /*public MrcpHeader(MrcpHeaderName name, Object valueObject) {
         this(name, valueObject.toString(), valueObject);
@@ -42,6 +53,13 @@ public class MrcpHeader {
         _valueObject = valueObject;
     }
 
+    /**
+     * Creates a header whose value object is parsed from the value string on first access.
+     */
+    MrcpHeader(MrcpHeaderName name, String valueString) {
+        this(name, valueString, UNPARSED);
+    }
+
     public MrcpHeaderName getHeaderName() {
         return _name;
     }
@@ -51,29 +69,107 @@ public class MrcpHeader {
     }
     
     public boolean isValidValue() {
-        return !(_valueObject == null || _valueObject instanceof Throwable);
+        Object valueObject = valueObject();
+        return !(valueObject == null || valueObject instanceof Throwable);
     }
 
     public Object getValueObject() throws IllegalValueException {
-        if (_valueObject == null) {
+        Object valueObject = valueObject();
+        if (valueObject == PRIMITIVE) {
+            return ((PrimitiveValueFactory) _name.getValueFactory()).box(_primitive);
+        }
+        checkValid(valueObject);
+        return valueObject;
+    }
+
+    /**
+     * @return the value of a header of type {@link Boolean}.
+     * @throws ClassCastException if the header does not have a boolean value.
+     * @throws IllegalValueException if the value string is not valid for the header.
+     */
+    public boolean getBooleanValue() throws ClassCastException, IllegalValueException {
+        return primitiveValue(Boolean.class) != 0;
+    }
+
+    /**
+     * @return the value of a header of type {@link Integer}.
+     * @throws ClassCastException if the header does not have an int value.
+     * @throws IllegalValueException if the value string is not valid for the header.
+     */
+    public int getIntValue() throws ClassCastException, IllegalValueException {
+        return (int) primitiveValue(Integer.class);
+    }
+
+    /**
+     * @return the value of a header of type {@link Long}.
+     * @throws ClassCastException if the header does not have a long value.
+     * @throws IllegalValueException if the value string is not valid for the header.
+     */
+    public long getLongValue() throws ClassCastException, IllegalValueException {
+        return primitiveValue(Long.class);
+    }
+
+    /**
+     * @return the value of a header of type {@link Float}.
+     * @throws ClassCastException if the header does not have a float value.
+     * @throws IllegalValueException if the value string is not valid for the header.
+     */
+    public float getFloatValue() throws ClassCastException, IllegalValueException {
+        return Float.intBitsToFloat((int) primitiveValue(Float.class));
+    }
+
+    private long primitiveValue(Class<?> valueClass) throws IllegalValueException {
+        ValueFactory valueFactory = (_name == null) ? null : _name.getValueFactory();
+        if (!(valueFactory instanceof PrimitiveValueFactory) || valueFactory.getValueClass() != valueClass) {
+            throw new ClassCastException("Header " + getNameString() + " does not have a " +
+                    valueClass.getName() + " value");
+        }
+        Object valueObject = valueObject();
+        if (valueObject == PRIMITIVE) {
+            return _primitive;
+        }
+        checkValid(valueObject);
+        return ((PrimitiveValueFactory) valueFactory).unbox(valueObject);
+    }
+
+    private void checkValid(Object valueObject) throws IllegalValueException {
+        if (valueObject == null) {
             throw new IllegalValueException("Value object could not be constructed for value string: " + _valueString);
         }
 
-        if (_valueObject instanceof Throwable) {
-            if (_valueObject instanceof IllegalValueException) {
-                throw (IllegalValueException) _valueObject;
+        if (valueObject instanceof Throwable) {
+            if (valueObject instanceof IllegalValueException) {
+                throw (IllegalValueException) valueObject;
             }
             throw new IllegalValueException("Value object could not be constructed for value string: " +
-                    _valueString, (Throwable) _valueObject);
+                    _valueString, (Throwable) valueObject);
         }
-
-        return _valueObject;
     }
 
     public String getValueString() {
         return _valueString;
     }
 
+    // parses the value string once, keeping the value object (or primitive) or the exception for later calls
+    private Object valueObject() {
+        Object valueObject = _valueObject;
+        if (valueObject == UNPARSED) {
+            try {
+                ValueFactory valueFactory = _name.getValueFactory();
+                if (valueFactory instanceof PrimitiveValueFactory) {
+                    _primitive = ((PrimitiveValueFactory) valueFactory).parse((_valueString == null) ? "" : _valueString.trim());
+                    valueObject = PRIMITIVE;
+                } else {
+                    valueObject = _name.createHeaderValue(_valueString);
+                }
+            } catch (IllegalValueException e) {
+                valueObject = e;
+            }
+            _valueObject = valueObject;
+        }
+        return valueObject;
+    }
+
     public StringBuilder appendTo(StringBuilder sb) {
         sb.append(_name);
         sb.append(":");
@@ -81,6 +177,48 @@ public class MrcpHeader {
         return sb;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        byte[] encoded = getCachedEncoding();
+        if (encoded != null) {
+            return encoded.length;
+        }
+        int nameLength = (_name == null) ? getNameString().length() + 1 : _name.getEncodedLength();
+        return nameLength + String.valueOf(getValueString()).length();
+    }
+
+    /**
+     * Writes the header as <code>name:value</code> to the buffer, one byte per character.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        byte[] encoded = getCachedEncoding();
+        if (encoded != null) {
+            buf.put(encoded);
+            return;
+        }
+        if (_name == null) {
+            MrcpEncoding.putAscii(buf, getNameString());
+            buf.put((byte) ':');
+        } else {
+            _name.encodeTo(buf);
+        }
+        MrcpEncoding.putAscii(buf, String.valueOf(getValueString()));
+    }
+
+    // channel identifiers are repeated on every message of a channel, so they keep their encoded header
+    private byte[] getCachedEncoding() {
+        if (_valueObject instanceof ChannelIdentifier) {
+            ChannelIdentifier channelID = (ChannelIdentifier) _valueObject;
+            if (channelID.toString().equals(_valueString)) {
+                return channelID.getEncodedHeader();
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return appendTo(new StringBuilder()).toString();
@@ -23,7 +23,11 @@
 package org.mrcp4j.message.header;
 
 import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.message.MrcpTokenizer;
+import org.mrcp4j.util.TokenTable;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 
 /**
@@ -287,7 +291,10 @@ public enum MrcpHeaderName {
             SPEECH_COMPLETE_TIMEOUT, NEW_AUDIO_CHANNEL, ABORT_VERIFICATION, START_INPUT_TIMERS
     );
 
+    private static final TokenTable<MrcpHeaderName> TOKENS = new TokenTable<MrcpHeaderName>(values());
+
     private String _name;
+    private byte[] _prefixBytes;
     private ValueFactory _valueFactory;
 
     private MrcpHeaderName(String name) {
@@ -296,11 +303,12 @@ public enum MrcpHeaderName {
     }
 
     private MrcpHeaderName(String name, Class<?> valueClass) {
-        this(name, new GenericValueFactory(valueClass));
+        this(name, createValueFactory(valueClass));
     }
 
     private MrcpHeaderName(String name, ValueFactory valueFactory) {
         _name = name;
+        _prefixBytes = name.concat(":").getBytes(StandardCharsets.US_ASCII);
         _valueFactory = valueFactory;
     }
     
@@ -361,6 +369,21 @@ public enum MrcpHeaderName {
         return _name;
     }
 
+    /**
+     * @return the number of bytes written by {@link #encodeTo(ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        return _prefixBytes.length;
+    }
+
+    /**
+     * Writes the US-ASCII encoded field-name followed by the ':' separator to the buffer.
+     * @param buf buffer to write to.
+     */
+    public void encodeTo(ByteBuffer buf) {
+        buf.put(_prefixBytes);
+    }
+
     /**
      * Converts an MRCP header field-name in string format to the appropriate MRCP4J enum value.
      * @param str MRCP header field-name
@@ -369,14 +392,45 @@ public enum MrcpHeaderName {
      * an existing MRCP header field-name
      */
     public static MrcpHeaderName fromString(String str) throws IllegalArgumentException {
-        for (MrcpHeaderName value : MrcpHeaderName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpHeaderName value = find(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up the header field-name matching a string, ignoring case.
+     * @param str MRCP header field-name, may be null.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpHeaderName find(CharSequence str) {
+        return TOKENS.get(str);
+    }
+
+    /**
+     * Looks up the header field-name contained in a range of bytes, ignoring case.
+     * @param buf buffer containing the US-ASCII encoded header field-name.
+     * @param from index of the first byte of the header field-name.
+     * @param to index following the last byte of the header field-name.
+     * @return the matching enum instance, or null if there is none.
+     */
+    public static MrcpHeaderName find(ByteBuffer buf, int from, int to) {
+        return TOKENS.get(buf, from, to);
     }
     
+    private static ValueFactory createValueFactory(Class<?> valueClass) {
+        ValueFactory valueFactory = PrimitiveValueFactory.forClass(valueClass);
+        return (valueFactory == null) ? new GenericValueFactory(valueClass) : valueFactory;
+    }
+
+    /**
+     * @return the factory used to create and validate value objects for this header.
+     */
+    ValueFactory getValueFactory() {
+        return _valueFactory;
+    }
+
     public MrcpHeader constructHeader(Object valueObject) throws ClassCastException, IllegalArgumentException {
         String valueString = _valueFactory.toValueString(valueObject);
         return new MrcpHeader(this, valueString, valueObject);
@@ -394,16 +448,13 @@ public enum MrcpHeaderName {
     }
 
     /**
-     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}. 
+     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}.  The value object
+     * is only created when it is first requested from the header.
      * @param valueString the string value for the new {@code MrcpHeader} instance. 
      * @return a new instance using the {@code MrcpHeaderName} and supplied value.
      */
     public MrcpHeader createHeader(String valueString) {
-        try {
-            return new MrcpHeader(this, valueString, createHeaderValue(valueString));
-        } catch (IllegalValueException e) {
-            return new MrcpHeader(this, valueString, e);
-        }
+        return new MrcpHeader(this, valueString);
     }
 
     /**
@@ -413,35 +464,36 @@ public enum MrcpHeaderName {
      * @return a new instance of {@code MrcpHeaderName} using the supplied field-name and field-value.
      */
     public static MrcpHeader createHeader(String name, String valueString) {
-        MrcpHeaderName headerName = null;
-        try {
-            headerName = fromString(name);
-        } catch (IllegalArgumentException e) {
+        MrcpHeaderName headerName = find(name);
+        if (headerName == null) {
             return new VendorSpecificHeader(name, (valueString == null) ? "" : valueString.trim());
         }
         return headerName.createHeader(valueString);
     }
 
     /**
-     * TODOC
+     * Factory method to create new {@code MrcpHeader} instances from a field-name contained in a range of bytes.
+     * @param  buf buffer containing the US-ASCII encoded field-name of the header.
+     * @param  from index of the first byte of the field-name.
+     * @param  to index following the last byte of the field-name.
+     * @param  valueString field-value of the header.
+     * @return a new instance of {@code MrcpHeaderName} using the supplied field-name and field-value.
      */
-    private static class NonNegativeIntegerFactory extends GenericValueFactory {
+    public static MrcpHeader createHeader(ByteBuffer buf, int from, int to, String valueString) {
+        MrcpHeaderName headerName = find(buf, from, to);
+        if (headerName == null) {
+            return createHeader(MrcpTokenizer.toAsciiString(buf, from, to), valueString);
+        }
+        return headerName.createHeader(valueString);
+    }
 
-        private static final Integer VALUE_MIN = new Integer(0);
+    /**
+     * TODOC
+     */
+    private static class NonNegativeIntegerFactory extends PrimitiveValueFactory.IntegerFactory {
 
         protected NonNegativeIntegerFactory() {
-            super(Integer.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal non-negative-integer value: " + valueObject);
-            }
+            super(0, Integer.MAX_VALUE, "Illegal non-negative-integer value: ");
         }
 
     }
@@ -449,23 +501,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class PositiveIntegerFactory extends GenericValueFactory {
-
-        private static final Integer VALUE_MIN = new Integer(1);
+    private static class PositiveIntegerFactory extends PrimitiveValueFactory.IntegerFactory {
 
         protected PositiveIntegerFactory() {
-            super(Integer.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal positive-integer value: " + valueObject);
-            }
+            super(1, Integer.MAX_VALUE, "Illegal positive-integer value: ");
         }
 
     }
@@ -473,24 +512,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class ZeroOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(0.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class ZeroOneFloatFactory extends PrimitiveValueFactory.FloatFactory {
 
         protected ZeroOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal zero-one-float value: " + valueObject);
-            }
+            super(0.0f, 1.0f, "Illegal zero-one-float value: ");
         }
 
     }
@@ -498,24 +523,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class MinusOnePlusOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(-1.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class MinusOnePlusOneFloatFactory extends PrimitiveValueFactory.FloatFactory {
 
         protected MinusOnePlusOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal minus_one-plus_one-float value: " + valueObject);
-            }
+            super(-1.0f, 1.0f, "Illegal minus_one-plus_one-float value: ");
         }
 
     }
@@ -523,24 +534,11 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class TimeoutFactory extends GenericValueFactory {
-
-        private static final Long VALUE_MIN = new Long(0);
-        private static final Long VALUE_MAX = new Long(10 * 60 * 1000);  // arbitrary maximum but ten minutes should be sufficient!
+    private static class TimeoutFactory extends PrimitiveValueFactory.LongFactory {
 
         protected TimeoutFactory() {
-            super(Long.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Long value = (Long) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal value for timeout: " + valueObject);
-            }
+            // arbitrary maximum but ten minutes should be sufficient!
+            super(0, 10 * 60 * 1000, "Illegal value for timeout: ");
         }
 
     }
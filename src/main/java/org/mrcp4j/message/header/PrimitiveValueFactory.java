@@ -0,0 +1,290 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+/**
+ * Base class for factories of header values that have a primitive representation.
+ *
+ * <p>Values are parsed into a <code>long</code> (booleans as 0 or 1, floats as their raw int bits) so that
+ * {@link MrcpHeader} can return them through its typed accessors without boxing.  Boxed value objects are
+ * only created when requested, sharing canonical instances for common values.</p>
+ */
+public abstract class PrimitiveValueFactory extends BaseValueFactory {
+
+    protected PrimitiveValueFactory(Class<?> valueClass) {
+        super(valueClass);
+    }
+
+    /**
+     * Parses and validates a value string.
+     * @param valueString the trimmed value string.
+     * @return the primitive representation of the value.
+     * @throws IllegalValueException if the value string is not valid for this factory.
+     */
+    public abstract long parse(String valueString) throws IllegalValueException;
+
+    /**
+     * @return the value object for a primitive representation returned by {@link #parse(String)}.
+     */
+    public abstract Object box(long primitive);
+
+    /**
+     * @return the primitive representation of a value object created by this factory.
+     */
+    public abstract long unbox(Object valueObject);
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+     */
+    public Object fromValueString(String valueString) throws IllegalValueException {
+        return box(parse(valueString));
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+     */
+    @Override
+    protected void validateObject(Object valueObject) throws IllegalValueException {
+        validate(unbox(valueObject), valueObject);
+    }
+
+    /**
+     * Subclasses should override this method if there is any limitation on the valid values of this factory.
+     * @param primitive primitive representation of the value.
+     * @param value the value for use in the exception message.
+     * @throws IllegalValueException if the value is not valid for this factory.
+     */
+    protected void validate(long primitive, Object value) throws IllegalValueException {
+        return;
+    }
+
+    /**
+     * Creates the factory for a primitive wrapper class without range restrictions.
+     * @param valueClass one of {@link Boolean}, {@link Integer}, {@link Long} or {@link Float}.
+     * @return the factory, or null if the class is not supported.
+     */
+    static PrimitiveValueFactory forClass(Class<?> valueClass) {
+        if (valueClass == Boolean.class) {
+            return new BooleanFactory();
+        } else if (valueClass == Integer.class) {
+            return new IntegerFactory(Integer.MIN_VALUE, Integer.MAX_VALUE, null);
+        } else if (valueClass == Long.class) {
+            return new LongFactory(Long.MIN_VALUE, Long.MAX_VALUE, null);
+        } else if (valueClass == Float.class) {
+            return new FloatFactory(Float.NEGATIVE_INFINITY, Float.NaN, null);
+        }
+        return null;
+    }
+
+    /**
+     * Parses booleans the same way as {@link Boolean#parseBoolean(String)}: any value other than
+     * <code>true</code> (ignoring case) is false.
+     */
+    public static class BooleanFactory extends PrimitiveValueFactory {
+
+        public BooleanFactory() {
+            super(Boolean.class);
+        }
+
+        @Override
+        public long parse(String valueString) {
+            return Boolean.parseBoolean(valueString) ? 1 : 0;
+        }
+
+        @Override
+        public Object box(long primitive) {
+            return Boolean.valueOf(primitive != 0);
+        }
+
+        @Override
+        public long unbox(Object valueObject) {
+            return ((Boolean) valueObject).booleanValue() ? 1 : 0;
+        }
+
+    }
+
+    /**
+     * Parses integers within an inclusive range.
+     */
+    public static class IntegerFactory extends PrimitiveValueFactory {
+
+        private int _min;
+        private int _max;
+        private String _rangeMessage;
+
+        /**
+         * @param rangeMessage prefix of the exception message for values outside the range.
+         */
+        public IntegerFactory(int min, int max, String rangeMessage) {
+            super(Integer.class);
+            _min = min;
+            _max = max;
+            _rangeMessage = rangeMessage;
+        }
+
+        @Override
+        public long parse(String valueString) throws IllegalValueException {
+            int value;
+            try {
+                value = Integer.parseInt(valueString);
+            } catch (NumberFormatException e) {
+                throw new IllegalValueException("Illegal " + getValueClass().getName() + " value: " + valueString, e);
+            }
+            validate(value, valueString);
+            return value;
+        }
+
+        @Override
+        protected void validate(long primitive, Object value) throws IllegalValueException {
+            if (primitive < _min || primitive > _max) {
+                throw new IllegalValueException(_rangeMessage + value);
+            }
+        }
+
+        @Override
+        public Object box(long primitive) {
+            return Integer.valueOf((int) primitive);
+        }
+
+        @Override
+        public long unbox(Object valueObject) {
+            return ((Integer) valueObject).intValue();
+        }
+
+    }
+
+    /**
+     * Parses longs within an inclusive range.
+     */
+    public static class LongFactory extends PrimitiveValueFactory {
+
+        // canonical instances for whole-second durations up to a minute, as commonly used for timeouts
+        private static final Long[] SECONDS = new Long[61];
+
+        static {
+            for (int i = 0; i < SECONDS.length; i++) {
+                SECONDS[i] = Long.valueOf(i * 1000L);
+            }
+        }
+
+        private long _min;
+        private long _max;
+        private String _rangeMessage;
+
+        /**
+         * @param rangeMessage prefix of the exception message for values outside the range.
+         */
+        public LongFactory(long min, long max, String rangeMessage) {
+            super(Long.class);
+            _min = min;
+            _max = max;
+            _rangeMessage = rangeMessage;
+        }
+
+        @Override
+        public long parse(String valueString) throws IllegalValueException {
+            long value;
+            try {
+                value = Long.parseLong(valueString);
+            } catch (NumberFormatException e) {
+                throw new IllegalValueException("Illegal " + getValueClass().getName() + " value: " + valueString, e);
+            }
+            validate(value, valueString);
+            return value;
+        }
+
+        @Override
+        protected void validate(long primitive, Object value) throws IllegalValueException {
+            if (primitive < _min || primitive > _max) {
+                throw new IllegalValueException(_rangeMessage + value);
+            }
+        }
+
+        @Override
+        public Object box(long primitive) {
+            if (primitive >= 0 && primitive % 1000 == 0 && primitive / 1000 < SECONDS.length) {
+                return SECONDS[(int) (primitive / 1000)];
+            }
+            return Long.valueOf(primitive);
+        }
+
+        @Override
+        public long unbox(Object valueObject) {
+            return ((Long) valueObject).longValue();
+        }
+
+    }
+
+    /**
+     * Parses floats within an inclusive range, ordered as by {@link Float#compare(float, float)}.
+     */
+    public static class FloatFactory extends PrimitiveValueFactory {
+
+        private float _min;
+        private float _max;
+        private String _rangeMessage;
+
+        /**
+         * @param rangeMessage prefix of the exception message for values outside the range.
+         */
+        public FloatFactory(float min, float max, String rangeMessage) {
+            super(Float.class);
+            _min = min;
+            _max = max;
+            _rangeMessage = rangeMessage;
+        }
+
+        @Override
+        public long parse(String valueString) throws IllegalValueException {
+            float value;
+            try {
+                value = Float.parseFloat(valueString);
+            } catch (NumberFormatException e) {
+                throw new IllegalValueException("Illegal " + getValueClass().getName() + " value: " + valueString, e);
+            }
+            long primitive = Float.floatToRawIntBits(value);
+            validate(primitive, valueString);
+            return primitive;
+        }
+
+        @Override
+        protected void validate(long primitive, Object value) throws IllegalValueException {
+            float f = Float.intBitsToFloat((int) primitive);
+            if (Float.compare(f, _min) < 0 || Float.compare(f, _max) > 0) {
+                throw new IllegalValueException(_rangeMessage + value);
+            }
+        }
+
+        @Override
+        public Object box(long primitive) {
+            return Float.valueOf(Float.intBitsToFloat((int) primitive));
+        }
+
+        @Override
+        public long unbox(Object valueObject) {
+            return Float.floatToRawIntBits(((Float) valueObject).floatValue());
+        }
+
+    }
+
+}
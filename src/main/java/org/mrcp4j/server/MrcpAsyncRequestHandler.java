@@ -0,0 +1,43 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.concurrent.CompletionStage;
+
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Asynchronous counterpart of {@link MrcpRequestHandler}, for handlers that produce their response without
+ * blocking the thread that dispatched the request, for example while waiting on a remote engine.
+ *
+ * <p>The response is sent to the client when the returned stage completes.  As with synchronous handlers,
+ * events cannot be posted to the session until then.  A stage completing exceptionally or with a null
+ * response results in a 501 (server internal error) response.  With per-channel dispatch the next request
+ * for the channel is dispatched as soon as this method returns, without waiting for the stage.</p>
+ */
+public interface MrcpAsyncRequestHandler {
+
+    public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session);
+
+}
@@ -22,12 +22,12 @@
  */
 package org.mrcp4j.server;
 
-import static org.mrcp4j.message.MrcpMessage.CRLF;
+import java.nio.ByteBuffer;
 
+import org.mrcp4j.message.MrcpEncoding;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.MrcpServerMessage;
-import org.mrcp4j.message.header.MrcpHeader;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
@@ -39,87 +39,102 @@ import org.apache.mina.filter.codec.ProtocolEncoderException;
 /**
  * Encodes {@link org.mrcp4j.message.MrcpMessage} instances into MRCPv2 specification format.
  *
+ * <p>The exact encoded size of each message is computed before encoding, so the message is written
+ * in a single pass into a buffer obtained from the configured {@link IoBuffer} allocator.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpMessageEncoder implements ProtocolEncoder {
 
-    private StringBuilder _encodeBuf = new StringBuilder();
+    private boolean _direct;
+
+    public MrcpMessageEncoder() {
+        this(IoBuffer.isUseDirectBuffer());
+    }
+
+    /**
+     * @param direct whether encoded messages should be written into direct buffers.
+     */
+    public MrcpMessageEncoder(boolean direct) {
+        _direct = direct;
+    }
 
     public void encode(IoSession session, Object message, ProtocolEncoderOutput out)
       throws Exception {
 
-        // clear encode buffer
-        _encodeBuf.delete(0, _encodeBuf.length());
-
-        // append start line
-        int offset = -1;
-        if (message instanceof MrcpResponse) {
-            offset = appendResponseLine(_encodeBuf, ((MrcpResponse) message));
-        } else if (message instanceof MrcpEvent) {
-            offset = appendEventLine(_encodeBuf, ((MrcpEvent) message));
-        } else {
+        if (!(message instanceof MrcpResponse || message instanceof MrcpEvent)) {
             throw new ProtocolEncoderException("Unsupported message type: " + message.getClass().getName());
         }
-
-        // append headers
         MrcpServerMessage serverMessage = (MrcpServerMessage) message;
-        for (MrcpHeader header : serverMessage.getHeaders()) {
-            _encodeBuf.append(header.toString()).append(CRLF);
-        }
-
-        // append CRLF line
-        _encodeBuf.append(CRLF);
-
-        // append message body if present
-        if (serverMessage.hasContent()) {
-            _encodeBuf.append(serverMessage.getContent());
-        }
-
-        // determine and set message length
-        int bufferLength = _encodeBuf.length();
-        int bufferLengthLength = Integer.toString(bufferLength).length();
-        int messageLength = bufferLength + bufferLengthLength;
-        String messageLengthString = Integer.toString(messageLength);
-        if (messageLengthString.length() > bufferLengthLength) {
-            messageLengthString = Integer.toString(++messageLength);
-        }
-        _encodeBuf.insert(offset, messageLengthString);
+        byte[] content = MrcpEncoding.getContentBytes(serverMessage);
+
+        // determine message length before encoding
+        int length = (message instanceof MrcpResponse)
+            ? responseLineLength((MrcpResponse) message)
+            : eventLineLength((MrcpEvent) message);
+        length += MrcpEncoding.headersLength(serverMessage.getHeaders()) + 2 + content.length;
+        int messageLength = MrcpEncoding.messageLength(length);
         serverMessage.setMessageLength(messageLength);
-        bufferLength = _encodeBuf.length();
 
-        // write _encodeBuf to out
-        IoBuffer bytes = IoBuffer.allocate(bufferLength);
-        for (int i = 0; i < bufferLength; i++) {
-            bytes.put((byte) _encodeBuf.charAt(i));
+        // write message into a buffer of the exact size
+        IoBuffer bytes = IoBuffer.allocate(messageLength, _direct);
+        ByteBuffer buf = bytes.buf();
+        if (message instanceof MrcpResponse) {
+            putResponseLine(buf, (MrcpResponse) message);
+        } else {
+            putEventLine(buf, (MrcpEvent) message);
         }
+        MrcpEncoding.putHeaders(buf, serverMessage.getHeaders());
+        MrcpEncoding.putCRLF(buf);
+        buf.put(content);
         bytes.flip();
         out.write(bytes);
     }
 
-    private static int appendEventLine(StringBuilder encodeBuf, MrcpEvent event) {
-        String version = event.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(event.getEventName());
-        encodeBuf.append(' ').append(event.getRequestID());
-        encodeBuf.append(' ').append(event.getRequestState());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    private static int eventLineLength(MrcpEvent event) {
+        return event.getVersion().length() + 1
+            + 1 + event.getEventName().getEncodedLength()
+            + 1 + MrcpEncoding.digitCount(event.getRequestID())
+            + 1 + event.getRequestState().getEncodedLength()
+            + 2;
+    }
+
+    private static void putEventLine(ByteBuffer buf, MrcpEvent event) {
+        MrcpEncoding.putVersion(buf, event.getVersion());
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, event.getMessageLength());
+        buf.put((byte) ' ');
+        event.getEventName().encodeTo(buf);
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, event.getRequestID());
+        buf.put((byte) ' ');
+        event.getRequestState().encodeTo(buf);
+        MrcpEncoding.putCRLF(buf);
+    }
+
+    private static int responseLineLength(MrcpResponse response) {
+        return response.getVersion().length() + 1
+            + 1 + MrcpEncoding.digitCount(response.getRequestID())
+            + 1 + response.getEncodedStatusCodeLength()
+            + 1 + response.getRequestState().getEncodedLength()
+            + 2;
     }
 
-    private static int appendResponseLine(StringBuilder encodeBuf, MrcpResponse response) {
-        String version = response.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(response.getRequestID());
-        encodeBuf.append(' ').append(response.getStatusCode());
-        encodeBuf.append(' ').append(response.getRequestState());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    private static void putResponseLine(ByteBuffer buf, MrcpResponse response) {
+        MrcpEncoding.putVersion(buf, response.getVersion());
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, response.getMessageLength());
+        buf.put((byte) ' ');
+        MrcpEncoding.putNumber(buf, response.getRequestID());
+        buf.put((byte) ' ');
+        response.encodeStatusCodeTo(buf);
+        buf.put((byte) ' ');
+        response.getRequestState().encodeTo(buf);
+        MrcpEncoding.putCRLF(buf);
     }
 
     @Override
     public void dispose(IoSession session) throws Exception {
         // No resources to clean up
     }
-}
\ No newline at end of file
+}
@@ -22,12 +22,30 @@
  */
 package org.mrcp4j.server;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.mrcp4j.MrcpMethodName;
 import org.mrcp4j.MrcpRequestState;
-import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.util.SerialExecutor;
 
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
 import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.AttributeKey;
 import org.apache.mina.core.session.IoSession;
 
 /**
@@ -36,10 +54,184 @@ import org.apache.mina.core.session.IoSession;
  */
 public class MrcpProtocolHandler extends IoHandlerAdapter {
 
+    private static Logger _log = LogManager.getLogger(MrcpProtocolHandler.class);
+
+    private static final AttributeKey CHANNEL_EXECUTORS = new AttributeKey(MrcpProtocolHandler.class, "channelExecutors");
+    private static final AttributeKey IN_FLIGHT = new AttributeKey(MrcpProtocolHandler.class, "inFlight");
+
+    /**
+     * Determines how received requests are dispatched to the executor.
+     */
+    public enum DispatchMode {
+
+        /**
+         * Each request is processed as soon as a thread is available, so requests for the same channel
+         * may be processed concurrently.
+         */
+        CONCURRENT,
+
+        /**
+         * Requests for the same channel are processed one at a time, in the order they were received,
+         * while requests for different channels are processed in parallel.
+         */
+        PER_CHANNEL
+
+    }
+
+    /**
+     * Methods controlling an operation in progress, which are dispatched ahead of other channels' requests.
+     */
+    public static final Set<MrcpMethodName> CONTROL_METHODS = Collections.unmodifiableSet(EnumSet.of(
+            MrcpMethodName.STOP, MrcpMethodName.BARGE_IN_OCCURRED, MrcpMethodName.PAUSE, MrcpMethodName.RESUME,
+            MrcpMethodName.START_INPUT_TIMERS));
+
     private MrcpRequestProcessor _requestProcessor;
+    private Executor _executor;
+    private volatile Executor _controlExecutor;
+    private volatile DispatchMode _dispatchMode = DispatchMode.CONCURRENT;
+
+    // admission limits, 0 meaning unlimited
+    private volatile int _maxInFlightRequests;
+    private volatile int _maxInFlightRequestsPerConnection;
+    private volatile int _maxQueuedRequests;
+    private volatile short _overloadStatusCode = MrcpResponse.STATUS_SERVER_INTERNAL_ERROR;
+
+    // requests dispatched whose response has not been written, and those of them not yet started
+    private AtomicInteger _inFlight = new AtomicInteger();
+    private AtomicInteger _queued = new AtomicInteger();
 
+    /**
+     * Constructs a handler that processes each request on a new thread.
+     * @param requestProcessor processor for the received requests.
+     */
     public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor) {
+        this(requestProcessor, new Executor() {
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+        });
+    }
+
+    /**
+     * Constructs a handler that processes requests on an executor.  Events are written to the client connection
+     * by the thread posting them and do not occupy a thread of the executor.
+     * @param requestProcessor processor for the received requests.
+     * @param executor executor running the request processing.
+     */
+    public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor, Executor executor) {
         _requestProcessor = requestProcessor;
+        _executor = executor;
+    }
+
+    /**
+     * @return the mode used to dispatch requests, {@link DispatchMode#CONCURRENT} by default.
+     */
+    public DispatchMode getDispatchMode() {
+        return _dispatchMode;
+    }
+
+    /**
+     * Sets the mode used to dispatch requests received from now on.
+     * @param dispatchMode the dispatch mode.
+     */
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        if (dispatchMode == null) {
+            throw new NullPointerException("Dispatch mode argument was null!");
+        }
+        _dispatchMode = dispatchMode;
+    }
+
+    public int getMaxInFlightRequests() {
+        return _maxInFlightRequests;
+    }
+
+    /**
+     * Limits the number of requests dispatched to the executor whose response has not been written yet, whether
+     * waiting for a thread, running, or waiting for an asynchronous request handler.  Requests above the limit are answered with the overload status code
+     * without invoking the request handler.
+     * @param maxInFlightRequests the limit, or 0 for no limit. (default)
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        _maxInFlightRequests = checkLimit(maxInFlightRequests);
+    }
+
+    public int getMaxInFlightRequestsPerConnection() {
+        return _maxInFlightRequestsPerConnection;
+    }
+
+    /**
+     * Limits the number of in-flight requests of a single client connection.
+     * @param maxInFlightRequestsPerConnection the limit, or 0 for no limit. (default)
+     * @see #setMaxInFlightRequests(int)
+     */
+    public void setMaxInFlightRequestsPerConnection(int maxInFlightRequestsPerConnection) {
+        _maxInFlightRequestsPerConnection = checkLimit(maxInFlightRequestsPerConnection);
+    }
+
+    public int getMaxQueuedRequests() {
+        return _maxQueuedRequests;
+    }
+
+    /**
+     * Limits the number of dispatched requests waiting for a thread, including requests held back by
+     * {@link DispatchMode#PER_CHANNEL} dispatch.
+     * @param maxQueuedRequests the limit, or 0 for no limit. (default)
+     */
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        _maxQueuedRequests = checkLimit(maxQueuedRequests);
+    }
+
+    public short getOverloadStatusCode() {
+        return _overloadStatusCode;
+    }
+
+    /**
+     * Sets the status code of the response to requests refused because a limit was reached or the executor
+     * rejected them.
+     * @param overloadStatusCode the status code, {@link MrcpResponse#STATUS_SERVER_INTERNAL_ERROR} by default.
+     */
+    public void setOverloadStatusCode(short overloadStatusCode) {
+        _overloadStatusCode = overloadStatusCode;
+    }
+
+    /**
+     * @return the number of requests dispatched whose response has not been written yet.
+     */
+    public int getInFlightRequestCount() {
+        return _inFlight.get();
+    }
+
+    /**
+     * @return the number of dispatched requests waiting for a thread.
+     */
+    public int getQueuedRequestCount() {
+        return _queued.get();
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        return limit;
+    }
+
+    /**
+     * @return the executor processing control requests, or null if they are processed on the request executor.
+     */
+    public Executor getControlExecutor() {
+        return _controlExecutor;
+    }
+
+    /**
+     * Sets a separate executor for requests whose method is one of the {@link #CONTROL_METHODS}, so that a
+     * STOP or BARGE-IN-OCCURRED does not wait behind bulk work of other channels such as DEFINE-GRAMMAR.
+     * With {@link DispatchMode#PER_CHANNEL} dispatch a control request still waits for the requests received
+     * before it on the same channel, so that a STOP never overtakes the SPEAK it is meant to stop.  Control
+     * requests bypass the admission limits, even when no control executor is set.
+     * @param controlExecutor the executor, or null to process control requests on the request executor.
+     */
+    public void setControlExecutor(Executor controlExecutor) {
+        _controlExecutor = controlExecutor;
     }
 
     /* (non-Javadoc)
@@ -57,40 +249,209 @@ public class MrcpProtocolHandler extends IoHandlerAdapter {
     @Override
     public void messageReceived(IoSession session, Object message) {
         MrcpRequest request = (MrcpRequest) message;
-        new EventThread(_requestProcessor, session, request).start(); // TODO: move threading down chain
+        if (CONTROL_METHODS.contains(request.getMethodName())) {
+            dispatchControlRequest(session, request);
+            return;
+        }
+
+        AtomicInteger connectionInFlight = getConnectionInFlight(session);
+        if (!admit(connectionInFlight)) {
+            if (_log.isDebugEnabled()) {
+                _log.debug("messageReceived(): request refused by admission limits, request-id " + request.getRequestID());
+            }
+            session.write(createRejectedResponse(request, _overloadStatusCode));
+            return;
+        }
+
+        try {
+            dispatch(session, request, new RequestTask(session, request, connectionInFlight), _executor);
+        } catch (RejectedExecutionException e) {
+            release(connectionInFlight, true);
+            _log.warn("messageReceived(): request rejected by executor, request-id " + request.getRequestID());
+            session.write(createRejectedResponse(request, _overloadStatusCode));
+        }
+    }
+
+    private void dispatchControlRequest(IoSession session, MrcpRequest request) {
+        Executor executor = _controlExecutor;
+        try {
+            dispatch(session, request, new RequestTask(session, request, null), (executor == null) ? _executor : executor);
+        } catch (RejectedExecutionException e) {
+            _log.warn("messageReceived(): control request rejected by executor, request-id " + request.getRequestID());
+            session.write(createRejectedResponse(request, _overloadStatusCode));
+        }
+    }
+
+    // messageReceived() is not called concurrently for a session, but counters are released by request threads
+    private static AtomicInteger getConnectionInFlight(IoSession session) {
+        AtomicInteger inFlight = (AtomicInteger) session.getAttribute(IN_FLIGHT);
+        if (inFlight == null) {
+            inFlight = new AtomicInteger();
+            session.setAttribute(IN_FLIGHT, inFlight);
+        }
+        return inFlight;
+    }
+
+    // counts the request against each limit, undoing the counts taken if one of the limits is exceeded
+    private boolean admit(AtomicInteger connectionInFlight) {
+        if (!acquire(connectionInFlight, _maxInFlightRequestsPerConnection)) {
+            return false;
+        }
+        if (!acquire(_inFlight, _maxInFlightRequests)) {
+            connectionInFlight.decrementAndGet();
+            return false;
+        }
+        if (!acquire(_queued, _maxQueuedRequests)) {
+            _inFlight.decrementAndGet();
+            connectionInFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean acquire(AtomicInteger counter, int limit) {
+        if (counter.incrementAndGet() > limit && limit > 0) {
+            counter.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void release(AtomicInteger connectionInFlight, boolean queued) {
+        if (queued) {
+            _queued.decrementAndGet();
+        }
+        _inFlight.decrementAndGet();
+        connectionInFlight.decrementAndGet();
+    }
+
+    private void dispatch(IoSession session, MrcpRequest request, Runnable task, Executor executor) {
+        ChannelIdentifier channelIdentifier = null;
+        if (_dispatchMode == DispatchMode.PER_CHANNEL) {
+            try {
+                channelIdentifier = request.getChannelIdentifier();
+            } catch (IllegalValueException e) {
+                // processing answers the malformed channel identifier, no order to keep
+            }
+        }
+        if (channelIdentifier == null) {
+            executor.execute(task);
+        } else {
+            getChannelExecutors(session).execute(channelIdentifier, task, executor);
+        }
+    }
+
+    // channels belong to a single connection, so their serial executors are kept with the session
+    private ChannelExecutors getChannelExecutors(IoSession session) {
+        ChannelExecutors executors = (ChannelExecutors) session.getAttribute(CHANNEL_EXECUTORS);
+        if (executors == null) {
+            executors = new ChannelExecutors();
+            session.setAttribute(CHANNEL_EXECUTORS, executors);
+        }
+        return executors;
     }
 
-    private static class EventThread extends Thread {
+    /**
+     * @return the number of channels of the session with requests queued or running in
+     * {@link DispatchMode#PER_CHANNEL} dispatch.
+     */
+    static int getChannelExecutorCount(IoSession session) {
+        ChannelExecutors executors = (ChannelExecutors) session.getAttribute(CHANNEL_EXECUTORS);
+        return (executors == null) ? 0 : executors.size();
+    }
+
+    // response for a request that could not be scheduled, built the same way as by MrcpSession.createResponse()
+    private static MrcpResponse createRejectedResponse(MrcpRequest request, short statusCode) {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(request.getVersion());
+        response.setMessageLength(-1);
+        response.setRequestID(request.getRequestID());
+        response.setStatusCode(statusCode);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        return response;
+    }
+
+    /**
+     * Serial executors of the channels of a connection, each removed once its queue has drained so that a
+     * long-lived connection does not keep one for every channel it ever used.
+     */
+    private class ChannelExecutors {
+
+        private Map<ChannelIdentifier, SerialExecutor> _executors = new HashMap<ChannelIdentifier, SerialExecutor>();
+
+        // looking up and queuing under the lock keeps an executor found here from being removed as idle
+        synchronized void execute(final ChannelIdentifier channelIdentifier, Runnable task, Executor taskExecutor) {
+            SerialExecutor executor = _executors.get(channelIdentifier);
+            if (executor == null) {
+                executor = new SerialExecutor(_executor) {
+                    @Override
+                    protected void idle() {
+                        remove(channelIdentifier, this);
+                    }
+                };
+                _executors.put(channelIdentifier, executor);
+            }
+            try {
+                executor.execute(task, taskExecutor);
+            } catch (RejectedExecutionException e) {
+                remove(channelIdentifier, executor);
+                throw e;
+            }
+        }
+
+        synchronized void remove(ChannelIdentifier channelIdentifier, SerialExecutor executor) {
+            if (_executors.get(channelIdentifier) == executor && executor.isIdle()) {
+                _executors.remove(channelIdentifier);
+            }
+        }
+
+        synchronized int size() {
+            return _executors.size();
+        }
+
+    }
+
+    private class RequestTask implements Runnable {
 
-        private MrcpRequestProcessor _requestProcessor;
         private IoSession _session;
         private MrcpRequest _request;
+        // null for control requests, which are not counted against the admission limits
+        private AtomicInteger _connectionInFlight;
 
-        EventThread(MrcpRequestProcessor requestProcessor, IoSession session, MrcpRequest request) {
+        RequestTask(IoSession session, MrcpRequest request, AtomicInteger connectionInFlight) {
             _request = request;
-            _requestProcessor = requestProcessor;
             _session = session;
+            _connectionInFlight = connectionInFlight;
         }
 
         /* (non-Javadoc)
          * @see java.lang.Runnable#run()
          */
-        @Override
         public void run() {
-            MrcpResponse response = _requestProcessor.processRequest(_request);
-            _session.write(response);
-
-            MrcpRequestState requestState = response.getRequestState();
-
-            while (!requestState.equals(MrcpRequestState.COMPLETE) && !_session.isClosing()) {
-                MrcpEvent event = _requestProcessor.getNextEvent(_request);
-                if (event != null) {
-                    _session.write(event);
-                    requestState = event.getRequestState();
-                } else {
-                    break;
-                }
+            if (_connectionInFlight == null) {
+                _requestProcessor.processRequest(_request, _session);
+                return;
             }
+            _queued.decrementAndGet();
+
+            // the request stays in flight until its response is written, which an asynchronous handler may do later
+            CompletionStage<?> stage;
+            try {
+                stage = _requestProcessor.processRequestAsync(_request, _session);
+            } catch (RuntimeException e) {
+                release(_connectionInFlight, false);
+                throw e;
+            }
+            if (stage == null) {
+                release(_connectionInFlight, false);
+                return;
+            }
+            stage.whenComplete(new BiConsumer<Object, Throwable>() {
+                public void accept(Object response, Throwable cause) {
+                    release(_connectionInFlight, false);
+                }
+            });
         }
     }
 
@@ -22,105 +22,49 @@
  */
 package org.mrcp4j.server;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-import org.apache.mina.core.buffer.IoBuffer;
-import org.apache.mina.core.session.IoSession;
-import org.apache.mina.filter.codec.ProtocolDecoder;
-import org.apache.mina.filter.codec.ProtocolDecoderOutput;
-import org.apache.mina.filter.codec.ProtocolDecoderException;
-import org.mrcp4j.message.header.IllegalValueException;
-import org.mrcp4j.message.header.MrcpHeader;
-import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.MrcpFramedMessageDecoder;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpTokenizer;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.message.request.MrcpRequestFactory;
 
 /**
  * Decodes request messages received in MRCPv2 format into {@link org.mrcp4j.message.request.MrcpRequest} instances.
  *
+ * <p>Messages are framed using the message-length field of the request-line, so a request that
+ * is split across several reads is accumulated until it is complete, and several pipelined
+ * requests contained in a single read are all decoded in one pass.  Framing is done by
+ * {@link MrcpFramedMessageDecoder}.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
-public class MrcpRequestDecoder implements ProtocolDecoder {
-
-	private static Logger _log = LogManager.getLogger(MrcpRequestDecoder.class);
-
-    private StringBuilder decodeBuf = new StringBuilder();
+public class MrcpRequestDecoder extends MrcpFramedMessageDecoder {
 
-    public void decode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
-      throws Exception {
-        try {
+    // token bounds of the request-line, reused between requests
+    private int[] _requestLineParts = new int[REQUEST_LINE_PART_COUNT * 2];
 
-            // create request from request-line
-            MrcpRequest request = createRequest(readLine(in));
-            
-            // read message-header
-            String line = null;
-            while ( (line = readLine(in)) != null && !(line = line.trim()).equals("") ) {
-                // TODO: handle multi-line headers
-                int index = line.indexOf(':');
-                if (index < 1) {
-                    throw new ParseException("Incorrect message-header format!", -1);
-                }
-                String name = line.substring(0, index);
-                String value = line.substring(index + 1).trim();
-                MrcpHeader header = MrcpHeaderName.createHeader(name, value);
-
-                request.addHeader(header);
-            }
-
-            // read request message body if present
-            MrcpHeader contentLengthHeader = request.getHeader(MrcpHeaderName.CONTENT_LENGTH);
-            int contentLength = 0;
-            try {
-                contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
-            } catch (IllegalValueException e) {
-                throw new ProtocolDecoderException(e.getMessage(), e);
-            }
-            if (contentLength > 0) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < contentLength; i++) {
-                    byte b = in.get();
-                    sb.append((char) b);
-                } // TODO: handle exceptions
-                request.setContent(sb.toString());
-            }
-
-            // write request object to out
-            out.write(request);
-
-        } catch (ParseException e) {
-            //TODO: return 408 response to client?
-            _log.debug(e, e);
-            throw new ProtocolDecoderException(e.getMessage(), e);
-        } catch (RuntimeException e) {
-            _log.debug(e, e);
-            throw e;
-        }
+    public MrcpRequestDecoder() {
+        this(DEFAULT_MAX_MESSAGE_LENGTH);
     }
 
-    private String readLine(IoBuffer in) {
-        if (!in.hasRemaining()) {
-            return null;
-        }
+    /**
+     * @param maxMessageLength largest message-length accepted for a single request.
+     */
+    public MrcpRequestDecoder(int maxMessageLength) {
+        super(maxMessageLength);
+    }
 
-        decodeBuf.delete(0, decodeBuf.length());
-        boolean done = false;
-        do {
-            byte b = in.get();
-            switch(b) {
-            case '\r':
-                break;
-            case '\n':
-                done = true;
-                break;
-            default:
-                decodeBuf.append((char) b);
-            }
-        } while (!done && in.hasRemaining());
-
-        return decodeBuf.toString();
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.MrcpFramedMessageDecoder#createMessage(java.nio.ByteBuffer, int, int)
+     */
+    @Override
+    protected MrcpMessage createMessage(ByteBuffer buf, int from, int to) throws ParseException {
+        return createRequest(buf, from, to, _requestLineParts);
     }
 
     private static final int REQUEST_LINE_MRCP_VERSION_PART   = 0;
@@ -135,29 +79,52 @@ public class MrcpRequestDecoder implements ProtocolDecoder {
             throw new ParseException("No request-line provided!", -1);
         }
 
-        String[] requestLineParts = requestLine.split(" ");
-        if (requestLineParts.length != REQUEST_LINE_PART_COUNT) {
+        byte[] bytes = requestLine.getBytes(StandardCharsets.ISO_8859_1);
+        return createRequest(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Creates a request from the request-line contained in the specified range of the buffer.
+     * @param buf buffer containing the request-line.
+     * @param from index of the first byte of the request-line.
+     * @param to index following the last byte of the request-line, leading and trailing whitespace is ignored.
+     * @return the request corresponding to the request-line.
+     * @throws ParseException if the request-line is not valid.
+     */
+    public static MrcpRequest createRequest(ByteBuffer buf, int from, int to) throws ParseException {
+        return createRequest(buf, from, to, new int[REQUEST_LINE_PART_COUNT * 2]);
+    }
+
+    private static MrcpRequest createRequest(ByteBuffer buf, int from, int to, int[] parts) throws ParseException {
+
+        from = MrcpTokenizer.trimStart(buf, from, to);
+        to = MrcpTokenizer.trimEnd(buf, from, to);
+        if (from == to) {
+            throw new ParseException("No request-line provided!", -1);
+        }
+
+        if (MrcpTokenizer.tokenize(buf, from, to, parts) != REQUEST_LINE_PART_COUNT) {
             throw new ParseException("Incorrect request-line format!", -1);
         }
 
         MrcpRequest request = null;
 
         // construct request from method-name
-        try {
-            request = MrcpRequestFactory.createRequest(requestLineParts[REQUEST_LINE_METHOD_NAME_PART]);
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect method-name format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
+        MrcpMethodName methodName = MrcpMethodName.find(buf,
+            parts[REQUEST_LINE_METHOD_NAME_PART * 2], parts[REQUEST_LINE_METHOD_NAME_PART * 2 + 1]);
+        if (methodName == null) {
+            throw new ParseException("Incorrect method-name format!", -1);
         }
+        request = MrcpRequestFactory.createRequest(methodName);
 
         // mrcp-version
-        request.setVersion(requestLineParts[REQUEST_LINE_MRCP_VERSION_PART]);  //TODO: need to check here if version is supported, or maybe at higher level...
+        request.setVersion(MrcpTokenizer.toVersionString(buf,  //TODO: need to check here if version is supported, or maybe at higher level...
+            parts[REQUEST_LINE_MRCP_VERSION_PART * 2], parts[REQUEST_LINE_MRCP_VERSION_PART * 2 + 1]));
 
         // message-length
         try {
-            request.setMessageLength(
-                Integer.parseInt(requestLineParts[REQUEST_LINE_MESSAGE_LENGTH_PART])
-            );
+            request.setMessageLength(MrcpTokenizer.parseInt(buf,
+                parts[REQUEST_LINE_MESSAGE_LENGTH_PART * 2], parts[REQUEST_LINE_MESSAGE_LENGTH_PART * 2 + 1]));
         } catch (NumberFormatException e){
             String message = "Incorrect message-length format!";
             throw (ParseException) new ParseException(message, -1).initCause(e);
@@ -165,9 +132,8 @@ public class MrcpRequestDecoder implements ProtocolDecoder {
 
         // request-id
         try {
-            request.setRequestID(
-                Long.parseLong(requestLineParts[REQUEST_LINE_REQUEST_ID_PART])
-            );
+            request.setRequestID(MrcpTokenizer.parseLong(buf,
+                parts[REQUEST_LINE_REQUEST_ID_PART * 2], parts[REQUEST_LINE_REQUEST_ID_PART * 2 + 1]));
         } catch (NumberFormatException e){
             String message = "Incorrect request-id format!";
             throw (ParseException) new ParseException(message, -1).initCause(e);
@@ -176,13 +142,4 @@ public class MrcpRequestDecoder implements ProtocolDecoder {
         return request;
     }
 
-    @Override
-    public void finishDecode(IoSession session, ProtocolDecoderOutput out) throws Exception {
-        // No buffering in this codec
-    }
-
-    @Override
-    public void dispose(IoSession session) throws Exception {
-        // No resources to clean up
-    }
 }
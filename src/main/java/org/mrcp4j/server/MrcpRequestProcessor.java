@@ -22,10 +22,16 @@
  */
 package org.mrcp4j.server;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.request.MrcpRequest;
 
+import org.apache.mina.core.session.IoSession;
+
 /**
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
@@ -34,6 +40,47 @@ public interface MrcpRequestProcessor {
 
     public MrcpResponse processRequest(MrcpRequest request);
 
+    /**
+     * Processes a request, writing the response and any events subsequently posted for the request
+     * directly to the session of the client connection.
+     * <p>
+     * The default implementation writes the response of {@link #processRequest(MrcpRequest)}, then the events
+     * returned by {@link #getNextEvent(MrcpRequest)} until the request is complete, holding the calling thread
+     * for the duration of the request.
+     * @param request the request to process.
+     * @param session session of the connection the request was received on.
+     */
+    public default void processRequest(MrcpRequest request, IoSession session) {
+        MrcpResponse response = processRequest(request);
+        session.write(response);
+
+        MrcpRequestState requestState = response.getRequestState();
+
+        while (!requestState.equals(MrcpRequestState.COMPLETE) && !session.isClosing()) {
+            MrcpEvent event = getNextEvent(request);
+            if (event != null) {
+                session.write(event);
+                requestState = event.getRequestState();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Processes a request like {@link #processRequest(MrcpRequest, IoSession)}, returning a stage completed once the
+     * response has been written, which may be after this method returns if the request is handled asynchronously.
+     * <p>
+     * The default implementation calls {@link #processRequest(MrcpRequest, IoSession)} and returns a completed stage.
+     * @param request the request to process.
+     * @param session session of the connection the request was received on.
+     * @return a stage completed once the response has been written.
+     */
+    public default CompletionStage<?> processRequestAsync(MrcpRequest request, IoSession session) {
+        processRequest(request, session);
+        return CompletableFuture.completedFuture(null);
+    }
+
     public MrcpEvent getNextEvent(MrcpRequest request);
 
 }
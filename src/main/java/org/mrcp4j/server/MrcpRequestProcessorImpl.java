@@ -22,24 +22,34 @@
  */
 package org.mrcp4j.server;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.session.IoSession;
 import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.message.header.CompletionCause;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.util.HashedWheelTimer;
+import org.mrcp4j.util.LongTable;
 import org.mrcp4j.util.ObjectWrapper;
 
 /**
@@ -50,72 +60,345 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
 
 	private static Logger _log = LogManager.getLogger(MrcpRequestProcessorImpl.class);
 
-    private Map<String, MrcpRequestHandler> _requestHandlers =
-        Collections.synchronizedMap(new HashMap<String, MrcpRequestHandler>());
+    // request handler and in-progress requests of each channel, an entry is removed once
+    // the channel has neither a request handler nor any requests waiting for getNextEvent()
+    private ConcurrentMap<ChannelIdentifier, Channel> _channels = new ConcurrentHashMap<ChannelIdentifier, Channel>();
+
+    /**
+     * Default period, in milliseconds, after which an in-progress request without any posted events expires.
+     */
+    public static final long DEFAULT_SESSION_TIMEOUT = 300000;
+
+    private HashedWheelTimer _timer;
+    private boolean _ownedTimer;
+    private volatile long _sessionTimeout = DEFAULT_SESSION_TIMEOUT;
+    private volatile CompletionCause _expiryCompletionCause;
+
+    // requests handed to a request handler that have not reached COMPLETE yet
+    private Set<MrcpSessionImpl> _activeSessions = ConcurrentHashMap.newKeySet();
+    private final Object _drainLock = new Object();
+    private volatile boolean _draining;
+    private volatile short _drainStatusCode;
+
+    /**
+     * Constructs a request processor expiring inactive requests on its own timer, with a resolution of one second.
+     */
+    public MrcpRequestProcessorImpl() {
+        this(new HashedWheelTimer("mrcp4j-session-timer", 1, TimeUnit.SECONDS, 512));
+        _ownedTimer = true;
+    }
+
+    /**
+     * Constructs a request processor expiring inactive requests on the specified timer.
+     * @param timer timer used to expire inactive requests, it is not stopped by {@link #dispose()}.
+     */
+    public MrcpRequestProcessorImpl(HashedWheelTimer timer) {
+        _timer = timer;
+    }
+
+    /**
+     * @return the period of inactivity, in milliseconds, after which an in-progress request expires.
+     */
+    public long getSessionTimeout() {
+        return _sessionTimeout;
+    }
+
+    /**
+     * Sets the period of inactivity after which an in-progress request expires.  The period is measured from
+     * the response or the last event posted for the request, and applies to requests processed from now on.
+     * @param sessionTimeout the timeout in milliseconds.
+     */
+    public void setSessionTimeout(long sessionTimeout) {
+        if (sessionTimeout <= 0) {
+            throw new IllegalArgumentException("Session timeout must be positive: " + sessionTimeout);
+        }
+        _sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * @return the completion cause of the COMPLETE event sent when a request expires, or null if none is sent.
+     */
+    public CompletionCause getExpiryCompletionCause() {
+        return _expiryCompletionCause;
+    }
+
+    /**
+     * Sets the completion cause of the COMPLETE event sent to the client when an in-progress request expires.
+     * The event is only sent for requests that complete with an event, such as SPEAK or RECOGNIZE.
+     * @param completionCause the completion cause, or null to send no event. (default)
+     */
+    public void setExpiryCompletionCause(CompletionCause completionCause) {
+        _expiryCompletionCause = completionCause;
+    }
+
+    /**
+     * Stops the timer expiring in-progress requests, unless it was supplied to the constructor.
+     */
+    public void dispose() {
+        if (_ownedTimer) {
+            _timer.stop();
+        }
+    }
+
+    /**
+     * Starts draining the processor.  From now on no channel can be opened, and requests that would start a
+     * new operation completed by an event, such as SPEAK or RECOGNIZE, are answered with the specified status
+     * code.  Other requests, such as STOP, are still handled so that operations in progress can complete.
+     * @param statusCode status code of the response to rejected requests.
+     */
+    public void drain(short statusCode) {
+        synchronized (_drainLock) {
+            _drainStatusCode = statusCode;
+            _draining = true;
+        }
+    }
+
+    /**
+     * @return true if {@link #drain(short)} has been called.
+     */
+    public boolean isDraining() {
+        return _draining;
+    }
 
-    private Map<String, MrcpSessionImpl> _sessions =
-        Collections.synchronizedMap(new HashMap<String, MrcpSessionImpl>());
+    /**
+     * Waits until no request is in progress.
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout argument.
+     * @return the requests still in progress when the timeout elapsed, empty if all requests completed.
+     * @throws InterruptedException if the current thread was interrupted while waiting.
+     */
+    public List<MrcpRequest> awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (_drainLock) {
+            while (!_activeSessions.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    break;
+                }
+                _drainLock.wait(remaining);
+            }
+        }
+        return getActiveRequests();
+    }
+
+    /**
+     * @return the requests handed to a request handler that have not reached COMPLETE state.
+     */
+    public List<MrcpRequest> getActiveRequests() {
+        List<MrcpRequest> requests = new ArrayList<MrcpRequest>();
+        for (MrcpSessionImpl session : _activeSessions) {
+            requests.add(session._request);
+        }
+        return requests;
+    }
+
+    /**
+     * @return the number of requests whose events are queued for getNextEvent() and not yet collected.
+     */
+    int getQueuedRequestCount() {
+        int count = 0;
+        for (Channel channel : _channels.values()) {
+            synchronized (channel) {
+                count += channel._requests.size();
+            }
+        }
+        return count;
+    }
+
+    // the drain check and the registration are atomic, so that a request admitted just before drain()
+    // cannot become active after awaitCompletion() has seen no active request
+    private boolean activate(MrcpSessionImpl session) {
+        synchronized (_drainLock) {
+            if (_draining && getCompletionEventName(session._request.getMethodName()) != null) {
+                return false;
+            }
+            _activeSessions.add(session);
+            return true;
+        }
+    }
 
+    private void deactivate(MrcpSessionImpl session) {
+        if (_activeSessions.remove(session)) {
+            synchronized (_drainLock) {
+                _drainLock.notifyAll();
+            }
+        }
+    }
 
     public MrcpResponse processRequest(MrcpRequest request) {
+        return processRequest(new MrcpSessionImpl(request, null)).toCompletableFuture().join();
+    }
+
+    public void processRequest(MrcpRequest request, IoSession ioSession) {
+        processRequest(new MrcpSessionImpl(request, ioSession));
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.server.MrcpRequestProcessor#processRequestAsync(org.mrcp4j.message.request.MrcpRequest, org.apache.mina.core.session.IoSession)
+     */
+    @Override
+    public CompletionStage<MrcpResponse> processRequestAsync(MrcpRequest request, IoSession ioSession) {
+        return processRequest(new MrcpSessionImpl(request, ioSession));
+    }
+
+    private CompletionStage<MrcpResponse> processRequest(final MrcpSessionImpl session) {
         _log.debug("MrcpRequestProcessorImpl.processRequest()...");
 
+        MrcpRequest request = session._request;
         MrcpResponse response = null;
 
-        MrcpSessionImpl session = new MrcpSessionImpl(request);
-
-        try {
-            ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
-            if (channelIdentifier == null) { // channel-identifier header missing
-                response = session.createResponse(MrcpResponse.STATUS_MANDATORY_HEADER_MISSING, MrcpRequestState.COMPLETE);
-            } else {
-                MrcpRequestHandler requestHandler = _requestHandlers.get(channelIdentifier.toString());
-                if (requestHandler == null) { // no available request handler
-                    response = session.createResponse(
-                            MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, MrcpRequestState.COMPLETE);
+        synchronized (session) {
+            try {
+                final ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
+                if (channelIdentifier == null) { // channel-identifier header missing
+                    response = session.createResponse(MrcpResponse.STATUS_MANDATORY_HEADER_MISSING, MrcpRequestState.COMPLETE);
                 } else {
-                    synchronized (session) {
-                        Exception cause = null;
+                    Channel channel = _channels.get(channelIdentifier);
+                    MrcpAsyncRequestHandler requestHandler = (channel == null) ? null : channel._requestHandler;
+                    if (requestHandler == null) { // no available request handler
+                        response = session.createResponse(
+                                MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, MrcpRequestState.COMPLETE);
+                    } else if (!activate(session)) {
+                        response = session.createResponse(_drainStatusCode, MrcpRequestState.COMPLETE);
+                    } else {
+                        CompletionStage<MrcpResponse> stage;
                         try {
-                            response = requestHandler.handleRequest(request, session);
+                            stage = requestHandler.handleRequestAsync(request, session);
                         } catch (Exception e) {
-                            cause = e;
+                            CompletableFuture<MrcpResponse> failed = new CompletableFuture<MrcpResponse>();
+                            failed.completeExceptionally(e);
+                            stage = failed;
                         }
-                        if (response == null) {
-                            if (cause == null) {
-                                _log.warn("processRequest(): got NULL response from request handler!");
-                            } else {
-                                _log.warn("processRequest(): got exception from request handler: ", cause);
-                            }
-                            response = session.createResponse(
-                                    MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
-                        } else {
-                            _log.debug("MrcpRequestProcessorImpl got response from request handler.");
-                            session._ready = true;
-                            if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
-                                session._complete = true;
-                            } else {
-                                _sessions.put(getRequestKey(request), session);
-                            }
+                        if (stage == null) {
+                            stage = CompletableFuture.completedFuture(null);
                         }
+                        return stage.handle(new BiFunction<MrcpResponse, Throwable, MrcpResponse>() {
+                            public MrcpResponse apply(MrcpResponse handlerResponse, Throwable cause) {
+                                return completeRequest(session, channelIdentifier, handlerResponse, cause);
+                            }
+                        });
                     }
                 }
+            } catch (IllegalValueException e) { // invalid channel-identifier header value
+                response = session.createResponse(MrcpResponse.STATUS_ILLEGAL_VALUE_FOR_HEADER, MrcpRequestState.COMPLETE);
+                response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+            }
+
+            if (session._ioSession != null) {
+                session._ioSession.write(response);
             }
-        } catch (IllegalValueException e) { // invalid channel-identifier header value
-            response = session.createResponse(MrcpResponse.STATUS_ILLEGAL_VALUE_FOR_HEADER, MrcpRequestState.COMPLETE);
-            response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
         }
 
+        return CompletableFuture.completedFuture(response);
+    }
+
+    // the session lock is held until a pushed response has been written, so that events posted
+    // from other threads cannot overtake the response
+    private MrcpResponse completeRequest(MrcpSessionImpl session, ChannelIdentifier channelIdentifier,
+            MrcpResponse response, Throwable cause) {
+
+        synchronized (session) {
+            if (response == null) {
+                if (cause == null) {
+                    _log.warn("processRequest(): got NULL response from request handler!");
+                } else {
+                    _log.warn("processRequest(): got exception from request handler: ", cause);
+                }
+                response = session.createResponse(
+                        MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
+                deactivate(session);
+            } else {
+                _log.debug("MrcpRequestProcessorImpl got response from request handler.");
+                session._ready = true;
+                if (!response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+                    session._lastActivity = System.nanoTime();
+                    try {
+                        session._timeout = _timer.schedule(
+                                new ExpiryTask(session, channelIdentifier), _sessionTimeout, TimeUnit.MILLISECONDS);
+                    } catch (IllegalStateException e) {
+                        // disposed while the request was being handled, it could never expire
+                        _log.warn("processRequest(): processor disposed, completing request " + session._request.getRequestID());
+                        response = session.createResponse(_draining ? _drainStatusCode
+                                : MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
+                    }
+                }
+                if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+                    session._complete = true;
+                    deactivate(session);
+                } else if (session._ioSession == null) {
+                    addRequest(channelIdentifier, session);
+                }
+            }
+
+            if (session._ioSession != null) {
+                session._ioSession.write(response);
+            }
+        }
 
         return response;
     }
 
     public MrcpRequestHandler registerRequestHandler(String channelID, MrcpRequestHandler requestHandler) {
-        return _requestHandlers.put(channelID, requestHandler);
+        return unwrap(registerAsyncRequestHandler(channelID, new SyncRequestHandlerAdapter(requestHandler)));
     }
 
+    /**
+     * Registers an asynchronous request handler for a channel, replacing any handler registered before.
+     * @param channelID the channel identifier value, for example <code>32AECB23433801@speechrecog</code>.
+     * @param requestHandler the request handler.
+     * @return the handler previously registered for the channel, or null if there was none.
+     * @throws IllegalArgumentException if the channel identifier is not valid.
+     * @throws IllegalStateException if the processor is draining.
+     */
+    public MrcpAsyncRequestHandler registerAsyncRequestHandler(String channelID, MrcpAsyncRequestHandler requestHandler) {
+        if (_draining) {
+            throw new IllegalStateException("Channels cannot be opened while the request processor is draining!");
+        }
+        ChannelIdentifier channelIdentifier = toChannelIdentifier(channelID);
+        for (;;) {
+            Channel channel = _channels.get(channelIdentifier);
+            if (channel == null) {
+                channel = new Channel();
+                channel._requestHandler = requestHandler;
+                if (_channels.putIfAbsent(channelIdentifier, channel) == null) {
+                    return null;
+                }
+                continue;
+            }
+            synchronized (channel) {
+                if (!channel._removed) {
+                    MrcpAsyncRequestHandler previous = channel._requestHandler;
+                    channel._requestHandler = requestHandler;
+                    return previous;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregisters the request handler of a channel.
+     * @param channelID the channel identifier value.
+     * @return the synchronous handler registered for the channel, or null if there was none or it was asynchronous.
+     */
     public MrcpRequestHandler unregisterRequestHandler(String channelID) {
-        return _requestHandlers.remove(channelID);
+        ChannelIdentifier channelIdentifier = toChannelIdentifier(channelID);
+        Channel channel = _channels.get(channelIdentifier);
+        if (channel == null) {
+            return null;
+        }
+        synchronized (channel) {
+            MrcpAsyncRequestHandler previous = channel._requestHandler;
+            channel._requestHandler = null;
+            removeIfUnused(channelIdentifier, channel);
+            return unwrap(previous);
+        }
+    }
+
+    private static MrcpRequestHandler unwrap(MrcpAsyncRequestHandler requestHandler) {
+        if (requestHandler instanceof SyncRequestHandlerAdapter) {
+            return ((SyncRequestHandlerAdapter) requestHandler).getRequestHandler();
+        }
+        return null;
     }
 
     // TODOC: Once this method has returned a null event or an event with MrcpRequestState.COMPLETE
@@ -123,8 +406,19 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
     public MrcpEvent getNextEvent(MrcpRequest request) {
 
         //lookup event acceptor for this request
-        String requestKey = getRequestKey(request);
-        MrcpSessionImpl session = _sessions.get(requestKey);
+        ChannelIdentifier channelIdentifier;
+        try {
+            channelIdentifier = request.getChannelIdentifier();
+        } catch (IllegalValueException e) {
+            throw new IllegalStateException("The specified request has already been completed.", e);
+        }
+        Channel channel = (channelIdentifier == null) ? null : _channels.get(channelIdentifier);
+        MrcpSessionImpl session = null;
+        if (channel != null) {
+            synchronized (channel) {
+                session = channel._requests.get(request.getRequestID());
+            }
+        }
         if (session == null) {
             throw new IllegalStateException("The specified request has already been completed.");
         }
@@ -137,29 +431,178 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
         // remove event acceptor if request is completed by this event
         if (event == null || event.getRequestState().equals(MrcpRequestState.COMPLETE)) {
             _log.debug("getNextEvent(): request is complete.");
-            _sessions.remove(requestKey);
+            removeRequest(channelIdentifier, session);
+            synchronized (session) {
+                if (session._timeout != null) {
+                    session._timeout.cancel();
+                }
+            }
         }
 
         return event;
     }
 
-    private static String getRequestKey(MrcpRequest request) {
-        StringBuilder sb = new StringBuilder(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER).getValueString());
-        sb.append(':').append(request.getRequestID());
-        return sb.toString();
+    private void addRequest(ChannelIdentifier channelIdentifier, MrcpSessionImpl session) {
+        for (;;) {
+            Channel channel = _channels.get(channelIdentifier);
+            if (channel == null) {
+                // the channel was unregistered while the request was being handled
+                channel = new Channel();
+                Channel existing = _channels.putIfAbsent(channelIdentifier, channel);
+                if (existing != null) {
+                    channel = existing;
+                }
+            }
+            synchronized (channel) {
+                if (!channel._removed) {
+                    channel._requests.put(session._request.getRequestID(), session);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void removeRequest(ChannelIdentifier channelIdentifier, MrcpSessionImpl session) {
+        Channel channel = _channels.get(channelIdentifier);
+        if (channel != null) {
+            synchronized (channel) {
+                long requestID = session._request.getRequestID();
+                if (channel._requests.get(requestID) == session) {
+                    channel._requests.remove(requestID);
+                    removeIfUnused(channelIdentifier, channel);
+                }
+            }
+        }
+    }
+
+    // must be called holding the channel lock
+    private void removeIfUnused(ChannelIdentifier channelIdentifier, Channel channel) {
+        if (channel._requestHandler == null && channel._requests.isEmpty()) {
+            channel._removed = true;
+            _channels.remove(channelIdentifier, channel);
+        }
+    }
+
+    private static ChannelIdentifier toChannelIdentifier(String channelID) {
+        try {
+            return (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
+        } catch (IllegalValueException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static MrcpEventName getCompletionEventName(MrcpMethodName methodName) {
+        if (methodName == null) {
+            return null;
+        }
+        switch (methodName) {
+            case SPEAK:
+                return MrcpEventName.SPEAK_COMPLETE;
+            case RECOGNIZE:
+                return MrcpEventName.RECOGNITION_COMPLETE;
+            case INTERPRET:
+                return MrcpEventName.INTERPRETATION_COMPLETE;
+            case RECORD:
+                return MrcpEventName.RECORD_COMPLETE;
+            case VERIFY:
+            case VERIFY_FROM_BUFFER:
+                return MrcpEventName.VERIFICATION_COMPLETE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Expires an in-progress request once no event has been posted for it within the session timeout.
+     * Runs on the timer thread, rescheduling itself for the remaining time after each posted event.
+     * A queued request stays armed after COMPLETE, and is evicted if getNextEvent() has not collected
+     * the completion within the session timeout.
+     */
+    private class ExpiryTask implements Runnable {
+
+        private MrcpSessionImpl _session;
+        private ChannelIdentifier _channelIdentifier;
+
+        ExpiryTask(MrcpSessionImpl session, ChannelIdentifier channelIdentifier) {
+            _session = session;
+            _channelIdentifier = channelIdentifier;
+        }
+
+        public void run() {
+            synchronized (_session) {
+                if (_session._complete && _session._ioSession != null) {
+                    return;
+                }
+                long timeout = _sessionTimeout;
+                long idle = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - _session._lastActivity);
+                if (idle < timeout) {
+                    _session._timeout = _timer.schedule(this, timeout - idle, TimeUnit.MILLISECONDS);
+                    return;
+                }
+
+                if (_session._complete) {
+                    // the COMPLETE event was queued but getNextEvent() never collected it
+                    if (_log.isDebugEnabled()) {
+                        _log.debug("ExpiryTask: evicting completed request " + _session._request.getRequestID() +
+                                " on channel " + _channelIdentifier + " after " + idle + "ms");
+                    }
+                } else {
+                    if (_log.isDebugEnabled()) {
+                        _log.debug("ExpiryTask: request " + _session._request.getRequestID() + " on channel " +
+                                _channelIdentifier + " expired after " + idle + "ms");
+                    }
+                    _session.expire(createExpiryEvent());
+                }
+            }
+            if (_session._ioSession == null) {
+                removeRequest(_channelIdentifier, _session);
+            }
+        }
+
+        private MrcpEvent createExpiryEvent() {
+            CompletionCause completionCause = _expiryCompletionCause;
+            MrcpEventName eventName = getCompletionEventName(_session._request.getMethodName());
+            if (completionCause == null || eventName == null) {
+                return null;
+            }
+            MrcpEvent event = _session.createEvent(eventName, MrcpRequestState.COMPLETE);
+            event.addHeader(MrcpHeaderName.COMPLETION_CAUSE.constructHeader(completionCause));
+            return event;
+        }
+
+    }
+
+    private static class Channel {
+
+        volatile MrcpAsyncRequestHandler _requestHandler;
+
+        // requests waiting for getNextEvent() by request-id, guarded by the channel lock
+        LongTable<MrcpSessionImpl> _requests = new LongTable<MrcpSessionImpl>();
+
+        // set once the channel has been removed from the map, guarded by the channel lock
+        boolean _removed;
+
     }
 
-    private static class MrcpSessionImpl implements MrcpSession {
+    private class MrcpSessionImpl implements MrcpSession {
 
-        private BlockingQueue<ObjectWrapper<MrcpEvent>> _eventQueue = new SynchronousQueue<ObjectWrapper<MrcpEvent>>();
-        private Object _lock = new Object();
+        private BlockingQueue<ObjectWrapper<MrcpEvent>> _eventQueue = new LinkedBlockingQueue<ObjectWrapper<MrcpEvent>>();
         boolean _ready = false;
         boolean _complete = false;
+        boolean _expired = false;
+
+        // time of the response or the last posted event, and the pending expiry, guarded by the session lock
+        long _lastActivity;
+        HashedWheelTimer.Timeout _timeout;
 
         private MrcpRequest _request;
 
-        private MrcpSessionImpl(MrcpRequest request) {
+        // events are written directly to the client connection if set, otherwise queued for getNextEvent()
+        private IoSession _ioSession;
+
+        private MrcpSessionImpl(MrcpRequest request, IoSession ioSession) {
             _request = request;
+            _ioSession = ioSession;
         }
 
         /* (non-Javadoc)
@@ -208,6 +651,12 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
                     "Events cannot be posted until a response has been returned to the MRCP client!"
                 );
             }
+            if (_expired) {
+                // TODO: change to more appropriate exception type.
+                throw new TimeoutException(
+                    "The MrcpSession has expired due to a period of inactivity."
+                );
+            }
             if (_complete) {
                 throw new IllegalStateException(
                     "Events cannot be posted after a request has reached COMPLETE state!"
@@ -217,46 +666,52 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
                 throw new NullPointerException("Event argument was null!");
             }
 
-            BlockingQueue<ObjectWrapper<MrcpEvent>> eventQueue = null;
-            synchronized (_lock) {
-                eventQueue = _eventQueue;
+            _lastActivity = System.nanoTime();
+            if (event.getRequestState().equals(MrcpRequestState.COMPLETE) && _ioSession != null && _timeout != null) {
+                _timeout.cancel();
             }
-            if (eventQueue == null) {
-                // TODO: change to more appropriate exception type.
-                throw new TimeoutException(
-                    "The MrcpSession has expired due to a period of inactivity."
-                );
+
+            if (_ioSession != null) {
+                if (_ioSession.isClosing()) {
+                    // TODO: change to more appropriate exception type.
+                    throw new TimeoutException(
+                        "The MrcpSession has expired because the client connection was closed."
+                    );
+                }
+                _ioSession.write(event);
+            } else {
+                _eventQueue.add(new ObjectWrapper<MrcpEvent>(event));
+            }
+            if (event.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+                _complete = true;
+                deactivate(this);
             }
+        }
 
-            try {
-                eventQueue.put(new ObjectWrapper<MrcpEvent>(event));
-                _complete = event.getRequestState().equals(MrcpRequestState.COMPLETE);
-//                if (_complete) {
-//                    _eventQueue.put(new ObjectWrapper<MrcpEvent>(null));
-//                }
-            } catch (InterruptedException e){
-                // TODO: change to more appropriate exception type.
-                throw (TimeoutException) new TimeoutException(e.getMessage()).initCause(e);
+        /**
+         * Completes the request because of inactivity, must be called holding the session lock.
+         * @param event COMPLETE event to deliver to the client, or null to deliver none.
+         */
+        void expire(MrcpEvent event) {
+            _expired = true;
+            _complete = true;
+            deactivate(this);
+            if (_ioSession == null) {
+                // a null event tells getNextEvent() callers the request has expired
+                _eventQueue.add(new ObjectWrapper<MrcpEvent>(event));
+            } else if (event != null && !_ioSession.isClosing()) {
+                _ioSession.write(event);
             }
         }
 
         /**
-         * TODOC
-         * @return
+         * Waits for the next event posted for the request.
+         * @return the next event, or null if the request has expired or the thread was interrupted.
          */
         MrcpEvent takeEvent() {
             ObjectWrapper<MrcpEvent> eventWrapper = null;
             try {
-                eventWrapper = _eventQueue.poll(300, TimeUnit.SECONDS);
-                if (eventWrapper == null) {
-                    // make sure no postEvent() in progress
-                    synchronized (_lock) {
-                        eventWrapper = _eventQueue.poll(100, TimeUnit.MILLISECONDS);
-                        if (eventWrapper == null) {
-                            _eventQueue = null;
-                        }
-                    }
-                }
+                eventWrapper = _eventQueue.take();
             } catch (InterruptedException e){
                 // TODO: propagate exception?
                 _log.warn("takeEvent(): interrupted: ", e);
@@ -0,0 +1,291 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.service.IoProcessor;
+import org.apache.mina.transport.socket.nio.NioSession;
+import org.mrcp4j.message.MrcpResponse;
+
+/**
+ * Settings for the I/O and request processing of a {@link MrcpServerSocket}.
+ *
+ * <p>Socket options left at their default values are not applied, so the operating system or MINA defaults
+ * remain in effect.  The exception is <code>TCP_NODELAY</code>, which is enabled by default because MRCP
+ * messages are small and latency sensitive.</p>
+ */
+public class MrcpServerConfig {
+
+    private Executor _executor;
+    private Executor _controlExecutor;
+    private MrcpProtocolHandler.DispatchMode _dispatchMode = MrcpProtocolHandler.DispatchMode.CONCURRENT;
+    private int _maxInFlightRequests;
+    private int _maxInFlightRequestsPerConnection;
+    private int _maxQueuedRequests;
+    private short _overloadStatusCode = MrcpResponse.STATUS_SERVER_INTERNAL_ERROR;
+    private IoProcessor<NioSession> _ioProcessor;
+    private int _acceptorCount = 1;
+    private int _processorCount;
+    private int _backlog;
+    private boolean _reuseAddress = true;
+    private boolean _tcpNoDelay = true;
+    private int _sendBufferSize;
+    private int _receiveBufferSize;
+    private int _readBufferSize;
+    private int _minReadBufferSize;
+    private int _maxReadBufferSize;
+
+    /**
+     * @return the executor processing requests, or null if the server creates a default one.
+     */
+    public Executor getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * @param executor the executor processing requests, or null for a default executor owned by the server.
+     */
+    public void setExecutor(Executor executor) {
+        _executor = executor;
+    }
+
+    /**
+     * @return the executor processing control requests, or null if the server creates a default one.
+     */
+    public Executor getControlExecutor() {
+        return _controlExecutor;
+    }
+
+    /**
+     * @param controlExecutor the executor processing control requests such as STOP, or null for a default
+     *        executor owned by the server.
+     * @see MrcpProtocolHandler#setControlExecutor(Executor)
+     */
+    public void setControlExecutor(Executor controlExecutor) {
+        _controlExecutor = controlExecutor;
+    }
+
+    public MrcpProtocolHandler.DispatchMode getDispatchMode() {
+        return _dispatchMode;
+    }
+
+    /**
+     * @param dispatchMode the mode used to dispatch requests to the executor.
+     */
+    public void setDispatchMode(MrcpProtocolHandler.DispatchMode dispatchMode) {
+        if (dispatchMode == null) {
+            throw new NullPointerException("Dispatch mode argument was null!");
+        }
+        _dispatchMode = dispatchMode;
+    }
+
+    public int getMaxInFlightRequests() {
+        return _maxInFlightRequests;
+    }
+
+    /**
+     * @param maxInFlightRequests the limit on requests being processed or waiting for a thread, or 0 for no limit.
+     * @see MrcpProtocolHandler#setMaxInFlightRequests(int)
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        _maxInFlightRequests = checkNotNegative("maxInFlightRequests", maxInFlightRequests);
+    }
+
+    public int getMaxInFlightRequestsPerConnection() {
+        return _maxInFlightRequestsPerConnection;
+    }
+
+    /**
+     * @param maxInFlightRequestsPerConnection the limit on in-flight requests of a connection, or 0 for no limit.
+     * @see MrcpProtocolHandler#setMaxInFlightRequestsPerConnection(int)
+     */
+    public void setMaxInFlightRequestsPerConnection(int maxInFlightRequestsPerConnection) {
+        _maxInFlightRequestsPerConnection =
+                checkNotNegative("maxInFlightRequestsPerConnection", maxInFlightRequestsPerConnection);
+    }
+
+    public int getMaxQueuedRequests() {
+        return _maxQueuedRequests;
+    }
+
+    /**
+     * @param maxQueuedRequests the limit on requests waiting for a thread, or 0 for no limit.
+     * @see MrcpProtocolHandler#setMaxQueuedRequests(int)
+     */
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        _maxQueuedRequests = checkNotNegative("maxQueuedRequests", maxQueuedRequests);
+    }
+
+    public short getOverloadStatusCode() {
+        return _overloadStatusCode;
+    }
+
+    /**
+     * @param overloadStatusCode status code of the response to requests refused by the admission limits or the
+     *        executor, {@link MrcpResponse#STATUS_SERVER_INTERNAL_ERROR} by default.
+     */
+    public void setOverloadStatusCode(short overloadStatusCode) {
+        _overloadStatusCode = overloadStatusCode;
+    }
+
+    public IoProcessor<NioSession> getIoProcessor() {
+        return _ioProcessor;
+    }
+
+    /**
+     * Sets a processor pool to be shared with other MINA services.  It is not disposed with the server socket.
+     * @param ioProcessor the I/O processor, or null for a processor pool owned by the server.
+     */
+    public void setIoProcessor(IoProcessor<NioSession> ioProcessor) {
+        _ioProcessor = ioProcessor;
+    }
+
+    public int getAcceptorCount() {
+        return _acceptorCount;
+    }
+
+    /**
+     * Sets the number of acceptors the bind addresses of a server socket are spread over, each with its own
+     * processor pool unless a shared I/O processor is set.  The count is capped at the number of bind addresses,
+     * since each address is bound by a single acceptor (SO_REUSEPORT is not available on Java 8), so a server
+     * listening on a single port always has one acceptor.  To spread the I/O of a single port over several
+     * cores, use {@link #setProcessorCount(int)} instead.
+     * @param acceptorCount the number of acceptors, 1 by default.
+     */
+    public void setAcceptorCount(int acceptorCount) {
+        if (acceptorCount < 1) {
+            throw new IllegalArgumentException("Illegal acceptorCount value: " + acceptorCount);
+        }
+        _acceptorCount = acceptorCount;
+    }
+
+    public int getProcessorCount() {
+        return _processorCount;
+    }
+
+    /**
+     * Sets the number of NIO selector threads of each processor pool owned by the server.  Ignored if a shared
+     * I/O processor is set.
+     * @param processorCount the number of threads, or 0 for the MINA default (number of cores + 1).
+     */
+    public void setProcessorCount(int processorCount) {
+        _processorCount = checkNotNegative("processorCount", processorCount);
+    }
+
+    public int getBacklog() {
+        return _backlog;
+    }
+
+    /**
+     * @param backlog the maximum number of pending connections, or 0 for the default.
+     */
+    public void setBacklog(int backlog) {
+        _backlog = checkNotNegative("backlog", backlog);
+    }
+
+    public boolean isReuseAddress() {
+        return _reuseAddress;
+    }
+
+    /**
+     * @param reuseAddress whether the server socket is bound with <code>SO_REUSEADDR</code>, true by default.
+     */
+    public void setReuseAddress(boolean reuseAddress) {
+        _reuseAddress = reuseAddress;
+    }
+
+    public boolean isTcpNoDelay() {
+        return _tcpNoDelay;
+    }
+
+    /**
+     * @param tcpNoDelay whether <code>TCP_NODELAY</code> is set on accepted connections, true by default.
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        _tcpNoDelay = tcpNoDelay;
+    }
+
+    public int getSendBufferSize() {
+        return _sendBufferSize;
+    }
+
+    /**
+     * @param sendBufferSize the <code>SO_SNDBUF</code> size of accepted connections, or 0 for the default.
+     */
+    public void setSendBufferSize(int sendBufferSize) {
+        _sendBufferSize = checkNotNegative("sendBufferSize", sendBufferSize);
+    }
+
+    public int getReceiveBufferSize() {
+        return _receiveBufferSize;
+    }
+
+    /**
+     * @param receiveBufferSize the <code>SO_RCVBUF</code> size of accepted connections, or 0 for the default.
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        _receiveBufferSize = checkNotNegative("receiveBufferSize", receiveBufferSize);
+    }
+
+    public int getReadBufferSize() {
+        return _readBufferSize;
+    }
+
+    /**
+     * @param readBufferSize the initial size of the buffer MINA reads into, or 0 for the default.
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        _readBufferSize = checkNotNegative("readBufferSize", readBufferSize);
+    }
+
+    public int getMinReadBufferSize() {
+        return _minReadBufferSize;
+    }
+
+    /**
+     * @param minReadBufferSize the size MINA may shrink the read buffer to, or 0 for the default.
+     */
+    public void setMinReadBufferSize(int minReadBufferSize) {
+        _minReadBufferSize = checkNotNegative("minReadBufferSize", minReadBufferSize);
+    }
+
+    public int getMaxReadBufferSize() {
+        return _maxReadBufferSize;
+    }
+
+    /**
+     * @param maxReadBufferSize the size MINA may grow the read buffer to, or 0 for the default.
+     */
+    public void setMaxReadBufferSize(int maxReadBufferSize) {
+        _maxReadBufferSize = checkNotNegative("maxReadBufferSize", maxReadBufferSize);
+    }
+
+    private static int checkNotNegative(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Illegal " + name + " value: " + value);
+        }
+        return value;
+    }
+
+}
@@ -23,12 +23,23 @@
 package org.mrcp4j.server;
 
 import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.mina.core.service.IoAcceptor;
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.transport.socket.SocketSessionConfig;
 import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
 import java.net.InetSocketAddress;
 import org.mrcp4j.MrcpEventName;
@@ -36,6 +47,7 @@ import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.MrcpResourceType;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.CompletionCause;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.server.delegator.RecogOnlyRequestDelegator;
 import org.mrcp4j.server.delegator.RecorderRequestDelegator;
@@ -48,6 +60,7 @@ import org.mrcp4j.server.provider.RecorderRequestHandler;
 import org.mrcp4j.server.provider.SpeakVerifyRequestHandler;
 import org.mrcp4j.server.provider.SpeechSynthRequestHandler;
 import org.mrcp4j.server.provider.VoiceEnrollmentRequestHandler;
+import org.mrcp4j.util.NamedThreadFactory;
 
 /**
  *
@@ -59,40 +72,215 @@ public class MrcpServerSocket {
 
     private static MrcpCodecFactory CODEC_FACTORY = new MrcpCodecFactory();
 
+    /**
+     * Maximum number of threads of the default request executor.
+     */
+    public static final int DEFAULT_MAX_THREADS = 256;
+
+    /**
+     * Maximum number of requests waiting for a thread of the default request executor.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Maximum number of threads of the default control request executor.
+     */
+    public static final int DEFAULT_MAX_CONTROL_THREADS = 16;
+
+    /**
+     * Maximum number of control requests waiting for a thread of the default control request executor.
+     */
+    public static final int DEFAULT_CONTROL_QUEUE_CAPACITY = 256;
+
     private MrcpRequestProcessorImpl _requestProcessorImpl;
-    private IoAcceptor _acceptor;
+    private MrcpProtocolHandler _protocolHandler;
+    private List<IoAcceptor> _acceptors;
     private int _port;
+    private ThreadPoolExecutor _ownedExecutor;
+    private ThreadPoolExecutor _ownedControlExecutor;
 
     /**
-     * Creates a MRCP server socket, bound to the specified port
+     * Creates a MRCP server socket, bound to the specified port, processing requests on a default
+     * executor created by {@link #createExecutor(int, int)}.
      * 
      * @param port the port number to bind to
      * @throws IOException if an I/O error occurs when opening the socket.
      */
     public MrcpServerSocket(int port) throws IOException {
-        _port = port;
+        this(port, (Executor) null);
+    }
+
+    /**
+     * Creates a MRCP server socket, bound to the specified port, processing requests on the specified executor.
+     * Requests the executor rejects are answered with a 501 (server internal error) response.
+     * 
+     * @param port the port number to bind to
+     * @param executor executor processing the requests, or null to use a default
+     *        executor that is shut down by {@link #dispose()}.
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(int port, Executor executor) throws IOException {
+        this(port, createConfig(executor));
+    }
+
+    /**
+     * Creates a MRCP server socket, bound to the specified port, with the I/O and request processing settings of
+     * the specified configuration.  Requests the executor rejects are answered with a 501 (server internal error)
+     * response.
+     * 
+     * @param port the port number to bind to
+     * @param config the server settings.
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(int port, MrcpServerConfig config) throws IOException {
+        this(Collections.singletonList(new InetSocketAddress(port)), config);
+    }
+
+    /**
+     * Creates a MRCP server socket bound to each of the specified addresses, with the I/O and request processing
+     * settings of the specified configuration.  All addresses serve the same channels.  The addresses are spread
+     * round-robin over {@link MrcpServerConfig#getAcceptorCount()} acceptors, at most one per address.
+     * 
+     * @param addresses the socket addresses to bind to.
+     * @param config the server settings.
+     * @throws IOException if an I/O error occurs when opening one of the sockets.
+     */
+    public MrcpServerSocket(List<? extends SocketAddress> addresses, MrcpServerConfig config) throws IOException {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("No address to bind to!");
+        }
+        _port = getPort(addresses.get(0));
+
+        Executor executor = config.getExecutor();
+        if (executor == null) {
+            _ownedExecutor = createExecutor(DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY);
+            executor = _ownedExecutor;
+        }
+        Executor controlExecutor = config.getControlExecutor();
+        if (controlExecutor == null) {
+            _ownedControlExecutor = createExecutor(
+                    "mrcp4j-control", DEFAULT_MAX_CONTROL_THREADS, DEFAULT_CONTROL_QUEUE_CAPACITY);
+            controlExecutor = _ownedControlExecutor;
+        }
 
         _requestProcessorImpl = new MrcpRequestProcessorImpl();
 
-        // Create acceptor
-        _acceptor = new NioSocketAcceptor();
-        
-        // Add logging filter
-        _acceptor.getFilterChain().addLast("logger", new IoTextLoggingFilter());
-        
-        // Add codec filter
-        _acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(CODEC_FACTORY));
-        
         // Set handler
-        _acceptor.setHandler(new MrcpProtocolHandler(_requestProcessorImpl));
-        
-        // Bind to port
-        _acceptor.bind(new InetSocketAddress(port));
+        _protocolHandler = new MrcpProtocolHandler(_requestProcessorImpl, executor);
+        _protocolHandler.setDispatchMode(config.getDispatchMode());
+        _protocolHandler.setControlExecutor(controlExecutor);
+        _protocolHandler.setMaxInFlightRequests(config.getMaxInFlightRequests());
+        _protocolHandler.setMaxInFlightRequestsPerConnection(config.getMaxInFlightRequestsPerConnection());
+        _protocolHandler.setMaxQueuedRequests(config.getMaxQueuedRequests());
+        _protocolHandler.setOverloadStatusCode(config.getOverloadStatusCode());
+
+        int acceptorCount = Math.min(Math.max(config.getAcceptorCount(), 1), addresses.size());
+        if (config.getAcceptorCount() > acceptorCount) {
+            _log.warn("MrcpServerSocket(): acceptor count " + config.getAcceptorCount() + " capped at " +
+                    acceptorCount + ", one acceptor per bind address; use processorCount to spread I/O over cores");
+        }
+        List<List<SocketAddress>> shards = new ArrayList<List<SocketAddress>>(acceptorCount);
+        for (int i = 0; i < acceptorCount; i++) {
+            shards.add(new ArrayList<SocketAddress>());
+        }
+        for (int i = 0; i < addresses.size(); i++) {
+            shards.get(i % acceptorCount).add(addresses.get(i));
+        }
+
+        _acceptors = new ArrayList<IoAcceptor>(acceptorCount);
+        try {
+            for (List<SocketAddress> shard : shards) {
+                // Create acceptor
+                IoAcceptor acceptor = createAcceptor(config);
+                _acceptors.add(acceptor);
+
+                // Add logging filter
+                acceptor.getFilterChain().addLast("logger", new IoTextLoggingFilter());
+
+                // Add codec filter
+                acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(CODEC_FACTORY));
+
+                acceptor.setHandler(_protocolHandler);
+
+                // Bind to addresses
+                acceptor.bind(shard);
+            }
+        } catch (IOException e) {
+            dispose();
+            throw e;
+        } catch (RuntimeException e) {
+            dispose();
+            throw e;
+        }
 
         if (_log.isDebugEnabled()) {
-            _log.debug("MRCPv2 protocol provider listening on port " + port);
+            _log.debug("MRCPv2 protocol provider listening on " + addresses);
+        }
+
+    }
+
+    private static int getPort(SocketAddress address) {
+        return (address instanceof InetSocketAddress) ? ((InetSocketAddress) address).getPort() : -1;
+    }
+
+    private static MrcpServerConfig createConfig(Executor executor) {
+        MrcpServerConfig config = new MrcpServerConfig();
+        config.setExecutor(executor);
+        return config;
+    }
+
+    private static NioSocketAcceptor createAcceptor(MrcpServerConfig config) {
+        NioSocketAcceptor acceptor;
+        if (config.getIoProcessor() != null) {
+            acceptor = new NioSocketAcceptor(config.getIoProcessor());
+        } else if (config.getProcessorCount() > 0) {
+            acceptor = new NioSocketAcceptor(config.getProcessorCount());
+        } else {
+            acceptor = new NioSocketAcceptor();
+        }
+
+        if (config.getBacklog() > 0) {
+            acceptor.setBacklog(config.getBacklog());
+        }
+        acceptor.setReuseAddress(config.isReuseAddress());
+
+        SocketSessionConfig sessionConfig = acceptor.getSessionConfig();
+        sessionConfig.setTcpNoDelay(config.isTcpNoDelay());
+        if (config.getSendBufferSize() > 0) {
+            sessionConfig.setSendBufferSize(config.getSendBufferSize());
+        }
+        if (config.getReceiveBufferSize() > 0) {
+            sessionConfig.setReceiveBufferSize(config.getReceiveBufferSize());
+        }
+        if (config.getMinReadBufferSize() > 0) {
+            sessionConfig.setMinReadBufferSize(config.getMinReadBufferSize());
+        }
+        if (config.getMaxReadBufferSize() > 0) {
+            sessionConfig.setMaxReadBufferSize(config.getMaxReadBufferSize());
+        }
+        if (config.getReadBufferSize() > 0) {
+            sessionConfig.setReadBufferSize(config.getReadBufferSize());
         }
+        return acceptor;
+    }
 
+    /**
+     * Creates a bounded executor suitable for processing requests, with threads named <code>mrcp4j-request-N</code>.
+     * Idle threads are released after a minute.  The executor rejects requests once all threads are busy and the
+     * queue is full; a different policy can be set through {@link ThreadPoolExecutor#setRejectedExecutionHandler}.
+     * @param maxThreads maximum number of threads.
+     * @param queueCapacity maximum number of requests waiting for a thread.
+     * @return the new executor.
+     */
+    public static ThreadPoolExecutor createExecutor(int maxThreads, int queueCapacity) {
+        return createExecutor("mrcp4j-request", maxThreads, queueCapacity);
+    }
+
+    private static ThreadPoolExecutor createExecutor(String threadNamePrefix, int maxThreads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new NamedThreadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -103,6 +291,49 @@ public class MrcpServerSocket {
         return _port;
     }
 
+    /**
+     * @return the socket addresses all acceptors are bound to.
+     */
+    public Set<SocketAddress> getLocalAddresses() {
+        Set<SocketAddress> addresses = new LinkedHashSet<SocketAddress>();
+        for (IoAcceptor acceptor : _acceptors) {
+            addresses.addAll(acceptor.getLocalAddresses());
+        }
+        return addresses;
+    }
+
+    /**
+     * @return the mode used to dispatch requests to the executor.
+     */
+    public MrcpProtocolHandler.DispatchMode getDispatchMode() {
+        return _protocolHandler.getDispatchMode();
+    }
+
+    /**
+     * Sets the mode used to dispatch requests to the executor.  Use {@link MrcpProtocolHandler.DispatchMode#PER_CHANNEL}
+     * for request handlers that rely on requests for a channel being processed one at a time, in order.
+     * @param dispatchMode the dispatch mode.
+     */
+    public void setDispatchMode(MrcpProtocolHandler.DispatchMode dispatchMode) {
+        _protocolHandler.setDispatchMode(dispatchMode);
+    }
+
+    /**
+     * Sets the period of inactivity after which an in-progress request expires, five minutes by default.
+     * @param sessionTimeout the timeout in milliseconds.
+     */
+    public void setSessionTimeout(long sessionTimeout) {
+        _requestProcessorImpl.setSessionTimeout(sessionTimeout);
+    }
+
+    /**
+     * Sets the completion cause of the COMPLETE event sent to the client when an in-progress request expires.
+     * @param completionCause the completion cause, or null to send no event. (default)
+     */
+    public void setExpiryCompletionCause(CompletionCause completionCause) {
+        _requestProcessorImpl.setExpiryCompletionCause(completionCause);
+    }
+
     public void openChannel(String channelID, RecogOnlyRequestHandler requestHandler) {
         validateChannelID(channelID, RecogOnlyRequestHandler.RESOURCE_TYPES);
         openChannel(channelID, new RecogOnlyRequestDelegator(requestHandler));
@@ -128,6 +359,18 @@ public class MrcpServerSocket {
         openChannel(channelID, new RecorderRequestDelegator(requestHandler));
     }
     
+    /**
+     * Opens a channel served by an asynchronous request handler, which receives every request for the
+     * channel regardless of its resource type.
+     * @param channelID the channel identifier value, for example <code>32AECB23433801@speechrecog</code>.
+     * @param requestHandler the request handler.
+     * @throws IllegalArgumentException if the channel ID is malformed or names an unknown resource type.
+     */
+    public void openChannel(String channelID, MrcpAsyncRequestHandler requestHandler) {
+        validateChannelID(channelID, MrcpResourceType.values());
+        _requestProcessorImpl.registerAsyncRequestHandler(channelID, requestHandler);
+    }
+
     private static void validateChannelID(String channelID, MrcpResourceType[] expected) {
         MrcpResourceType actual = MrcpResourceType.fromChannelID(channelID);
         for (MrcpResourceType type : expected) {
@@ -149,9 +392,67 @@ public class MrcpServerSocket {
         _requestProcessorImpl.unregisterRequestHandler(channelID);
     }
 
+    /**
+     * Shuts the server down without cutting off requests in progress.  The server stops accepting connections
+     * and new operations, as described for {@link MrcpRequestProcessorImpl#drain(short)}, while open connections
+     * are kept so that requests in progress can reach COMPLETE state.  The server is disposed once all requests
+     * have completed or the timeout elapsed, and the request executor, if owned by the server, is given the
+     * remaining time to terminate.
+     * @param statusCode status code of the response to requests rejected while draining, for example
+     *        {@link MrcpResponse#STATUS_METHOD_NOT_VALID_IN_STATE}.
+     * @param timeout the maximum time to wait for requests in progress.
+     * @param unit the unit of the timeout argument.
+     * @return the requests still in progress when the server was disposed.
+     * @throws InterruptedException if the current thread was interrupted while waiting; the server is disposed.
+     */
+    public List<MrcpRequest> shutdown(short statusCode, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        _requestProcessorImpl.drain(statusCode);
+        for (IoAcceptor acceptor : _acceptors) {
+            acceptor.setCloseOnDeactivation(false);
+            acceptor.unbind();
+        }
+
+        // the expiry timer is stopped last, requests still queued on the executors may need it
+        List<MrcpRequest> active;
+        try {
+            try {
+                active = _requestProcessorImpl.awaitCompletion(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } finally {
+                disposeIo();
+            }
+            if (!active.isEmpty()) {
+                _log.warn("shutdown(): " + active.size() + " request(s) still in progress");
+            }
+            if (_ownedExecutor != null) {
+                _ownedExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            }
+            if (_ownedControlExecutor != null) {
+                _ownedControlExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            _requestProcessorImpl.dispose();
+        }
+        return active;
+    }
+
     public void dispose() {
-        if (_acceptor != null) {
-            _acceptor.dispose();
+        disposeIo();
+        _requestProcessorImpl.dispose();
+    }
+
+    // disposes the acceptors and stops the owned executors from accepting new requests
+    private void disposeIo() {
+        if (_acceptors != null) {
+            for (IoAcceptor acceptor : _acceptors) {
+                acceptor.dispose();
+            }
+        }
+        if (_ownedExecutor != null) {
+            _ownedExecutor.shutdown();
+        }
+        if (_ownedControlExecutor != null) {
+            _ownedControlExecutor.shutdown();
         }
     }
 
@@ -0,0 +1,60 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Adapts a synchronous {@link MrcpRequestHandler} to {@link MrcpAsyncRequestHandler}, handling the request
+ * on the calling thread and returning an already completed stage.
+ */
+class SyncRequestHandlerAdapter implements MrcpAsyncRequestHandler {
+
+    private MrcpRequestHandler _requestHandler;
+
+    SyncRequestHandlerAdapter(MrcpRequestHandler requestHandler) {
+        _requestHandler = requestHandler;
+    }
+
+    MrcpRequestHandler getRequestHandler() {
+        return _requestHandler;
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.server.MrcpAsyncRequestHandler#handleRequestAsync(org.mrcp4j.message.request.MrcpRequest, org.mrcp4j.server.MrcpSession)
+     */
+    public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+        CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        try {
+            future.complete(_requestHandler.handleRequest(request, session));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Timer for large numbers of approximate timeouts, such as session expiry.
+ *
+ * <p>Timeouts are kept in a ring of buckets that a single thread advances one bucket per tick, so
+ * scheduling and cancelling are constant-time and no thread is parked per timeout.  Timeouts fire
+ * up to one tick late.  Tasks run on the timer thread and should return quickly.</p>
+ */
+public class HashedWheelTimer {
+
+    private static Logger _log = LogManager.getLogger(HashedWheelTimer.class);
+
+    private String _name;
+    private long _tickNanos;
+    private Queue<Timeout>[] _wheel;
+    private Queue<Timeout> _pending = new ConcurrentLinkedQueue<Timeout>();
+    private AtomicBoolean _started = new AtomicBoolean();
+    private volatile boolean _stopped;
+    private final long _startTime = System.nanoTime();
+    private volatile Thread _worker;
+
+    /**
+     * Constructs a timer, its thread is started when the first timeout is scheduled.
+     * @param name name of the timer thread.
+     * @param tickDuration duration of a tick, the resolution of the timer.
+     * @param unit unit of the tick duration.
+     * @param ticksPerWheel number of buckets, timeouts up to this many ticks away are kept in separate buckets.
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Tick duration and ticks per wheel must be positive");
+        }
+        _name = name;
+        _tickNanos = unit.toNanos(tickDuration);
+        _wheel = new Queue[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            _wheel[i] = new LinkedList<Timeout>();
+        }
+    }
+
+    /**
+     * Schedules a task to run once after the specified delay.
+     * @param task the task to run.
+     * @param delay the delay.
+     * @param unit unit of the delay.
+     * @return handle for cancelling the task.
+     * @throws IllegalStateException if the timer has been stopped.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("Task argument was null!");
+        }
+        start();
+        if (_stopped) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - _startTime + unit.toNanos(Math.max(delay, 0)));
+        _pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread, timeouts that have not fired yet are discarded.
+     */
+    public void stop() {
+        _stopped = true;
+        Thread worker = _worker;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void start() {
+        if (_started.compareAndSet(false, true)) {
+            Thread worker = new Thread(new Runnable() {
+                public void run() {
+                    runWheel();
+                }
+            }, _name);
+            worker.setDaemon(true);
+            _worker = worker;
+            worker.start();
+        }
+    }
+
+    private void runWheel() {
+        long tick = (System.nanoTime() - _startTime) / _tickNanos;
+        while (!_stopped) {
+            // sleep until the end of the current tick
+            long deadline = (tick + 1) * _tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = deadline - (System.nanoTime() - _startTime)) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (_stopped) {
+                        return;
+                    }
+                }
+            }
+
+            transferPending(tick);
+            expire(_wheel[(int) (tick % _wheel.length)], tick);
+            tick++;
+        }
+    }
+
+    private void transferPending(long currentTick) {
+        Timeout timeout;
+        while ((timeout = _pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // never schedule into a bucket that has already been passed
+            long tick = Math.max(timeout._deadline / _tickNanos, currentTick);
+            timeout._remainingRounds = (tick - currentTick) / _wheel.length;
+            _wheel[(int) (tick % _wheel.length)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket, long tick) {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext();) {
+            Timeout timeout = it.next();
+            if (timeout.isCancelled()) {
+                it.remove();
+            } else if (timeout._remainingRounds <= 0) {
+                it.remove();
+                if (timeout._state.compareAndSet(false, true)) {
+                    try {
+                        timeout._task.run();
+                    } catch (Throwable t) {
+                        _log.warn("expire(): timer task threw exception: ", t);
+                    }
+                }
+            } else {
+                timeout._remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * Handle for a task scheduled on a {@link HashedWheelTimer}.
+     */
+    public static class Timeout {
+
+        private Runnable _task;
+        private long _deadline;
+        private long _remainingRounds;
+
+        // set when the timeout has fired or been cancelled
+        private AtomicBoolean _state = new AtomicBoolean();
+        private volatile boolean _cancelled;
+
+        Timeout(Runnable task, long deadline) {
+            _task = task;
+            _deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         * @return true if the task was cancelled, false if it has already run or been cancelled.
+         */
+        public boolean cancel() {
+            if (_state.compareAndSet(false, true)) {
+                _cancelled = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return true if the task was cancelled before it ran.
+         */
+        public boolean isCancelled() {
+            return _cancelled;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash table mapping primitive <code>long</code> keys to non-null values.
+ *
+ * <p>Entries are stored in parallel arrays using open addressing with linear probing, so neither lookups
+ * nor updates box the key or allocate entry objects.  The table starts small and doubles when half full,
+ * which suits tables holding a handful of entries, such as the in-progress requests of a channel.
+ * Instances are not thread-safe.</p>
+ *
+ * @param <V> the type of values held in the table
+ */
+public final class LongTable<V> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] _keys = new long[INITIAL_CAPACITY];
+    private Object[] _values = new Object[INITIAL_CAPACITY];
+    private int _size;
+
+    /**
+     * @param key the key to look up.
+     * @return the value for the key or null if the table contains no such key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return (index < 0) ? null : (V) _values[index];
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     * @param key the key.
+     * @param value the value, must not be null.
+     * @return the previous value for the key or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Value argument was null!");
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V old = (V) _values[index];
+            _values[index] = value;
+            return old;
+        }
+        if ((_size + 1) * 2 > _values.length) {
+            resize(_values.length * 2);
+        }
+        insert(key, value);
+        _size++;
+        return null;
+    }
+
+    /**
+     * Removes the value for a key.
+     * @param key the key.
+     * @return the removed value or null if the table contained no such key.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) _values[index];
+        _values[index] = null;
+        _size--;
+
+        // shift following entries of the probe sequence back so that lookups need no tombstones
+        int mask = _values.length - 1;
+        int hole = index;
+        for (int i = (index + 1) & mask; _values[i] != null; i = (i + 1) & mask) {
+            int home = slot(_keys[i], mask);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                _keys[hole] = _keys[i];
+                _values[hole] = _values[i];
+                _values[i] = null;
+                hole = i;
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @return the number of entries in the table.
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return true if the table contains no entries.
+     */
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * @return a list of the values in the table, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> values = new ArrayList<V>(_size);
+        for (Object value : _values) {
+            if (value != null) {
+                values.add((V) value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Removes all entries, shrinking the table back to its initial capacity.
+     */
+    public void clear() {
+        _keys = new long[INITIAL_CAPACITY];
+        _values = new Object[INITIAL_CAPACITY];
+        _size = 0;
+    }
+
+    private int indexOf(long key) {
+        int mask = _values.length - 1;
+        for (int i = slot(key, mask); _values[i] != null; i = (i + 1) & mask) {
+            if (_keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long key, Object value) {
+        int mask = _values.length - 1;
+        int i = slot(key, mask);
+        while (_values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        _keys[i] = key;
+        _values[i] = value;
+    }
+
+    private void resize(int capacity) {
+        long[] keys = _keys;
+        Object[] values = _values;
+        _keys = new long[capacity];
+        _values = new Object[capacity];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                insert(keys[i], values[i]);
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        // request-ids are mostly sequential, mix the bits so they do not cluster
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory creating daemon threads named with a common prefix and a sequence number,
+ * so that threads of MRCP4J pools can be identified in thread dumps.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private String _prefix;
+    private AtomicInteger _count = new AtomicInteger();
+
+    /**
+     * Constructs a factory naming threads <code>prefix-1</code>, <code>prefix-2</code> and so on.
+     * @param prefix prefix of the thread names.
+     */
+    public NamedThreadFactory(String prefix) {
+        _prefix = prefix;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+     */
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, _prefix + '-' + _count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Executor that runs its tasks one at a time, in submission order, on a backing executor.  No thread is
+ * dedicated to an instance, so any number of serial executors can share a pool: each task is scheduled on
+ * the backing executor separately, which lets tasks of different serial executors interleave fairly.
+ */
+public class SerialExecutor implements Executor {
+
+    private static Logger _log = LogManager.getLogger(SerialExecutor.class);
+
+    private Executor _executor;
+    private Queue<Task> _tasks = new ArrayDeque<Task>();
+    private boolean _running;
+
+    private Runnable _worker = new Runnable() {
+        public void run() {
+            runTasks();
+        }
+    };
+
+    /**
+     * Constructs a serial executor running its tasks on the specified executor.
+     * @param executor backing executor.
+     */
+    public SerialExecutor(Executor executor) {
+        _executor = executor;
+    }
+
+    /**
+     * Queues a task to run after all previously submitted tasks have completed.
+     * @param command the task to run.
+     * @throws RejectedExecutionException if the backing executor rejects the task while no other task is queued.
+     */
+    public void execute(Runnable command) {
+        execute(command, _executor);
+    }
+
+    /**
+     * Queues a task to run after all previously submitted tasks have completed, on a specific executor
+     * rather than the backing executor.  Order with the other tasks is kept, but once the task is next in
+     * line it waits for a thread of that executor, so a task that must not wait behind unrelated work can be
+     * given a dedicated pool.
+     * @param command the task to run.
+     * @param executor executor the task is run on.
+     * @throws RejectedExecutionException if the executor rejects the task while no other task is queued.
+     */
+    public void execute(Runnable command, Executor executor) {
+        if (command == null) {
+            throw new NullPointerException("Task argument was null!");
+        }
+        if (executor == null) {
+            throw new NullPointerException("Executor argument was null!");
+        }
+        synchronized (this) {
+            _tasks.add(new Task(command, executor));
+            if (_running) {
+                return;
+            }
+            _running = true;
+            try {
+                executor.execute(_worker);
+            } catch (RejectedExecutionException e) {
+                _tasks.clear();
+                _running = false;
+                throw e;
+            }
+        }
+    }
+
+    private void runTasks() {
+        for (;;) {
+            Task task;
+            synchronized (this) {
+                task = _tasks.poll();
+            }
+            try {
+                task._command.run();
+            } catch (Throwable t) {
+                _log.warn("runTasks(): task threw exception: ", t);
+            }
+
+            Executor next;
+            synchronized (this) {
+                if (_tasks.isEmpty()) {
+                    _running = false;
+                    break;
+                }
+                next = _tasks.peek()._executor;
+            }
+            try {
+                // give other work on the executor a turn before the next task
+                next.execute(_worker);
+                return;
+            } catch (RejectedExecutionException e) {
+                // executor is saturated, keep running the queued tasks on this thread
+            }
+        }
+        idle();
+    }
+
+    /**
+     * @return true if no task is queued or running.
+     */
+    public synchronized boolean isIdle() {
+        return !_running;
+    }
+
+    /**
+     * Called on the thread that ran the last queued task, after it completed.  Tasks may have been submitted
+     * again by the time this method runs, which {@link #isIdle()} tells.  Does nothing by default.
+     */
+    protected void idle() {
+    }
+
+    private static class Task {
+
+        private Runnable _command;
+        private Executor _executor;
+
+        Task(Runnable command, Executor executor) {
+            _command = command;
+            _executor = executor;
+        }
+
+    }
+
+}
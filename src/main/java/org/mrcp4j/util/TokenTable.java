@@ -0,0 +1,160 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable case-insensitive lookup table for US-ASCII protocol tokens.
+ *
+ * <p>Tokens are stored in an open-addressing hash table keyed by their lower-cased bytes, so a lookup
+ * hashes and compares the characters of the key once and never allocates, whether the key is given as a
+ * {@link CharSequence} or as a range of bytes.</p>
+ *
+ * @param <V> the type of values held in the table
+ */
+public final class TokenTable<V> {
+
+    private final byte[][] _keys;
+    private final Object[] _values;
+    private final int _mask;
+
+    /**
+     * Creates a table containing each of the specified values keyed by its {@link Object#toString()} value.
+     * @param values the values to be contained in the table, the string form of each must be US-ASCII.
+     * @throws IllegalArgumentException if two values have keys that only differ in case.
+     */
+    public TokenTable(V[] values) {
+        int capacity = Integer.highestOneBit(Math.max(values.length, 1) * 2) << 1;
+        _keys = new byte[capacity][];
+        _values = new Object[capacity];
+        _mask = capacity - 1;
+
+        for (V value : values) {
+            String key = value.toString();
+            byte[] bytes = new byte[key.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                char c = key.charAt(i);
+                if (c > 0x7f) {
+                    throw new IllegalArgumentException("Non-ASCII token: " + key);
+                }
+                bytes[i] = (byte) toLowerCase(c);
+            }
+
+            int index = spread(hash(bytes)) & _mask;
+            while (_keys[index] != null) {
+                if (Arrays.equals(_keys[index], bytes)) {
+                    throw new IllegalArgumentException("Duplicate token: " + key);
+                }
+                index = (index + 1) & _mask;
+            }
+            _keys[index] = bytes;
+            _values[index] = value;
+        }
+    }
+
+    /**
+     * @param key the token to look up, case is ignored.
+     * @return the value for the token or null if the table contains no such token.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence key) {
+        if (key == null) {
+            return null;
+        }
+
+        int length = key.length();
+        int hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            hash = (hash ^ toLowerCase(c)) * FNV_PRIME;
+        }
+
+        for (int index = spread(hash) & _mask; _keys[index] != null; index = (index + 1) & _mask) {
+            byte[] bytes = _keys[index];
+            if (bytes.length == length) {
+                int i = 0;
+                while (i < length && bytes[i] == toLowerCase(key.charAt(i))) {
+                    i++;
+                }
+                if (i == length) {
+                    return (V) _values[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param buf buffer containing the token.
+     * @param from index of the first byte of the token.
+     * @param to index following the last byte of the token.
+     * @return the value for the token or null if the table contains no such token.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        int hash = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ toLowerCase(buf.get(i) & 0xff)) * FNV_PRIME;
+        }
+
+        for (int index = spread(hash) & _mask; _keys[index] != null; index = (index + 1) & _mask) {
+            byte[] bytes = _keys[index];
+            if (bytes.length == length) {
+                int i = 0;
+                while (i < length && bytes[i] == toLowerCase(buf.get(from + i) & 0xff)) {
+                    i++;
+                }
+                if (i == length) {
+                    return (V) _values[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private static int hash(byte[] bytes) {
+        int hash = FNV_OFFSET;
+        for (byte b : bytes) {
+            hash = (hash ^ b) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static int toLowerCase(int c) {
+        return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
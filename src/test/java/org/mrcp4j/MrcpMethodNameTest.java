@@ -23,6 +23,10 @@
 package org.mrcp4j;
 
 import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 /**
@@ -150,4 +154,14 @@ public class MrcpMethodNameTest {
     public void testEnumValueOfInvalid() {
         MrcpMethodName.valueOf("INVALID_METHOD");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncodeTo() {
+        for (MrcpMethodName value : MrcpMethodName.values()) {
+            ByteBuffer buf = ByteBuffer.allocate(value.getEncodedLength());
+            value.encodeTo(buf);
+            assertFalse(buf.hasRemaining());
+            assertEquals(value.toString(), new String(buf.array(), StandardCharsets.US_ASCII));
+        }
+    }
+}
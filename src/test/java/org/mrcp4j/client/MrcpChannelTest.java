@@ -0,0 +1,335 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Unit tests for {@link MrcpChannel}.
+ */
+public class MrcpChannelTest {
+
+    private RecordingSession _session;
+    private MrcpSocket _socket;
+    private MrcpChannel _channel;
+
+    @Before
+    public void setUp() throws Exception {
+        _session = new RecordingSession();
+        _socket = new MrcpSocket(_session);
+        _channel = new MrcpChannel("32AECB23433801@speechrecog", _socket);
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        MrcpRequest setParams = _channel.createRequest(MrcpMethodName.SET_PARAMS);
+        MrcpRequest defineGrammar = _channel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+        MrcpRequest recognize = _channel.createRequest(MrcpMethodName.RECOGNIZE);
+        CompletableFuture<MrcpResponse> first = _channel.sendRequestAsync(setParams);
+        CompletableFuture<MrcpResponse> second = _channel.sendRequestAsync(defineGrammar);
+        CompletableFuture<MrcpResponse> third = _channel.sendRequestAsync(recognize);
+        assertEquals("All requests should be sent without waiting", 3, _session._written.size());
+
+        // responses are matched by request-id, whatever their order
+        MrcpResponse recognizeResponse = createResponse(recognize, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+        _channel.handleMessage(recognizeResponse);
+        assertSame(recognizeResponse, third.get());
+        assertFalse(first.isDone());
+
+        MrcpResponse setParamsResponse = createResponse(setParams, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        _channel.handleMessage(setParamsResponse);
+        assertSame(setParamsResponse, first.get());
+
+        _channel.handleMessage(createResponse(defineGrammar, MrcpResponse.STATUS_OPERATION_FAILED, MrcpRequestState.COMPLETE));
+        try {
+            second.get();
+            fail("Error status should fail the future");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof MrcpInvocationException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateRequestID() {
+        MrcpRequest request = _channel.createRequest(MrcpMethodName.SET_PARAMS);
+        _channel.sendRequestAsync(request);
+        _channel.sendRequestAsync(request);
+    }
+
+    @Test
+    public void testConnectionClosed() throws Exception {
+        CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(_channel.createRequest(MrcpMethodName.RECOGNIZE));
+        new MrcpSocket.ClientHandler().sessionClosed(_session);
+        try {
+            future.get();
+            fail("Pending requests should fail when the connection closes");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        _session.closeNow();
+        try {
+            _channel.sendRequest(_channel.createRequest(MrcpMethodName.STOP));
+            fail("Requests should not be sent on a closed connection");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRequestHandleCompletesOnEvent() throws Exception {
+        MrcpRequest recognize = _channel.createRequest(MrcpMethodName.RECOGNIZE);
+        MrcpRequestHandle handle = _channel.submitRequest(recognize);
+        assertSame(recognize, handle.getRequest());
+
+        MrcpResponse response = createResponse(recognize, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+        _channel.handleMessage(response);
+        assertSame(response, handle.getResponse().get());
+        assertFalse(handle.getCompletion().isDone());
+
+        MrcpEvent started = createEvent(recognize, MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS);
+        _channel.handleMessage(started);
+        final List<MrcpEvent> received = new ArrayList<MrcpEvent>();
+        handle.addEventListener(new MrcpEventListener() {
+            public void eventReceived(MrcpEvent event) {
+                received.add(event);
+            }
+        });
+        assertEquals("Earlier events should be replayed to a new listener", 1, received.size());
+
+        MrcpEvent complete = createEvent(recognize, MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE);
+        _channel.handleMessage(complete);
+        assertSame(complete, handle.getCompletion().get());
+        assertEquals(2, received.size());
+        assertEquals(2, handle.getEvents().size());
+    }
+
+    @Test
+    public void testRequestHandleCompletedByResponse() throws Exception {
+        MrcpRequest setParams = _channel.createRequest(MrcpMethodName.SET_PARAMS);
+        MrcpRequestHandle handle = _channel.submitRequest(setParams);
+        _channel.handleMessage(createResponse(setParams, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE));
+        assertTrue(handle.getCompletion().isDone());
+        assertNull(handle.getCompletion().get());
+
+        MrcpRequest recognize = _channel.createRequest(MrcpMethodName.RECOGNIZE);
+        handle = _channel.submitRequest(recognize);
+        _channel.handleMessage(createResponse(recognize, MrcpResponse.STATUS_METHOD_NOT_VALID_IN_STATE, MrcpRequestState.COMPLETE));
+        try {
+            handle.getCompletion().get();
+            fail("Error status should fail the completion");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof MrcpInvocationException);
+        }
+    }
+
+    @Test
+    public void testSendRequestTimeout() throws Exception {
+        MrcpRequest request = _channel.createRequest(MrcpMethodName.GET_PARAMS);
+        try {
+            _channel.sendRequest(request, 20, TimeUnit.MILLISECONDS);
+            fail("Should time out without a response");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        // the late response is discarded and the request-id can be used again
+        _channel.handleMessage(createResponse(request, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE));
+        CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(request);
+        assertFalse(future.isDone());
+    }
+
+    @Test
+    public void testSendRequestAsyncTimeout() throws Exception {
+        MrcpRequest request = _channel.createRequest(MrcpMethodName.GET_PARAMS);
+        CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(request, 20, TimeUnit.MILLISECONDS);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Should time out without a response");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        _channel.handleMessage(createResponse(request, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE));
+        MrcpRequest answered = _channel.createRequest(MrcpMethodName.GET_PARAMS);
+        CompletableFuture<MrcpResponse> second = _channel.sendRequestAsync(answered, 5, TimeUnit.SECONDS);
+        MrcpResponse response = createResponse(answered, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        _channel.handleMessage(response);
+        assertSame(response, second.get());
+    }
+
+    @Test
+    public void testCancelSendsStop() throws Exception {
+        MrcpRequest speak = _channel.createRequest(MrcpMethodName.SPEAK);
+        MrcpRequestHandle handle = _channel.submitRequest(speak);
+        _channel.handleMessage(createResponse(speak, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS));
+
+        CompletableFuture<MrcpResponse> stopped = handle.cancel(true);
+        assertTrue(handle.getCompletion().isCancelled());
+        assertEquals(2, _session._written.size());
+        MrcpRequest stop = (MrcpRequest) _session._written.get(1);
+        assertEquals(MrcpMethodName.STOP, stop.getMethodName());
+        assertEquals(Long.toString(speak.getRequestID()),
+                stop.getHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST).getValueString());
+
+        MrcpResponse stopResponse = createResponse(stop, MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        _channel.handleMessage(stopResponse);
+        assertSame(stopResponse, stopped.get());
+
+        // events of the cancelled request no longer reach the handle
+        _channel.handleMessage(createEvent(speak, MrcpEventName.SPEAK_COMPLETE, MrcpRequestState.COMPLETE));
+        assertTrue(handle.getEvents().isEmpty());
+        assertNull("Cancelling a finished request does nothing", handle.cancel(true).get());
+        assertEquals(2, _session._written.size());
+    }
+
+    @Test
+    public void testSubmitRequestDeadline() throws Exception {
+        MrcpRequestHandle handle = _channel.submitRequest(
+                _channel.createRequest(MrcpMethodName.RECOGNIZE), 20, TimeUnit.MILLISECONDS, false);
+        try {
+            handle.getCompletion().get(2, TimeUnit.SECONDS);
+            fail("Request should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(handle.getResponse().isCompletedExceptionally());
+        assertEquals("No STOP should be sent", 1, _session._written.size());
+    }
+
+    @Test
+    public void testFailedWriteFailsRequest() throws Exception {
+        IOException cause = new IOException("Connection reset by peer");
+        _session._writeFailure = cause;
+        MrcpRequest request = _channel.createRequest(MrcpMethodName.RECOGNIZE);
+        CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(request);
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Request that was not written should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertSame(cause, e.getCause().getCause());
+        }
+
+        // the request-id is free again
+        _session._writeFailure = null;
+        _channel.sendRequestAsync(request);
+    }
+
+    @Test
+    public void testFramingErrorClosesConnection() throws Exception {
+        CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(_channel.createRequest(MrcpMethodName.RECOGNIZE));
+        ProtocolDecoderException cause = new ProtocolDecoderException("Incorrect message-length: 3");
+        new MrcpSocket.ClientHandler().exceptionCaught(_session, cause);
+        assertTrue("Stream cannot be resynchronized after a framing error", _session.isClosing());
+        try {
+            future.get();
+            fail("Pending requests should fail on a framing error");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertSame(cause, e.getCause().getCause());
+        }
+    }
+
+    @Test
+    public void testBlockingSendFromListenerFailsFast() throws Exception {
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        _channel.addEventListener(new MrcpEventListener() {
+            public void eventReceived(MrcpEvent event) {
+                try {
+                    _channel.sendRequest(_channel.createRequest(MrcpMethodName.STOP));
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+            }
+        });
+        MrcpRequest recognize = _channel.createRequest(MrcpMethodName.RECOGNIZE);
+        _channel.sendRequestAsync(recognize);
+
+        new MrcpSocket.ClientHandler().messageReceived(_session,
+                createEvent(recognize, MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS));
+        assertEquals(1, failures.size());
+        assertTrue("Waiting for a response on the delivering thread would deadlock",
+                failures.get(0) instanceof IllegalStateException);
+        assertEquals("STOP should not have been sent", 1, _session._written.size());
+    }
+
+    private MrcpEvent createEvent(MrcpRequest request, MrcpEventName eventName, MrcpRequestState requestState) {
+        MrcpEvent event = new MrcpEvent();
+        event.setVersion(request.getVersion());
+        event.setEventName(eventName);
+        event.setRequestID(request.getRequestID());
+        event.setRequestState(requestState);
+        event.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        return event;
+    }
+
+    private MrcpResponse createResponse(MrcpRequest request, short statusCode, MrcpRequestState requestState) {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(request.getVersion());
+        response.setRequestID(request.getRequestID());
+        response.setStatusCode(statusCode);
+        response.setRequestState(requestState);
+        response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        return response;
+    }
+
+    private static class RecordingSession extends DummySession {
+
+        final List<Object> _written = new CopyOnWriteArrayList<Object>();
+        volatile Throwable _writeFailure;
+
+        @Override
+        public WriteFuture write(Object message) {
+            _written.add(message);
+            Throwable writeFailure = _writeFailure;
+            return (writeFailure == null)
+                ? DefaultWriteFuture.newWrittenFuture(this) : DefaultWriteFuture.newNotWrittenFuture(this, writeFailure);
+        }
+
+    }
+
+}
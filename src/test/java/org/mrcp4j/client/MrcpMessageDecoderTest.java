@@ -0,0 +1,116 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+
+/**
+ * Unit tests for {@link MrcpMessageDecoder}.
+ */
+public class MrcpMessageDecoderTest {
+
+    @Test
+    public void testDecodeResponseAndEvent() throws Exception {
+        String messages =
+            "MRCP/2.0 85 543257 200 IN-PROGRESS\r\n" +
+            "Channel-Identifier:32AECB23433801@speechrecog\r\n" +
+            "\r\n" +
+            "MRCP/2.0 150 RECOGNITION-COMPLETE 543257 COMPLETE\r\n" +
+            "Channel-Identifier:32AECB23433801@speechrecog\r\n" +
+            "Content-Type:text/plain\r\n" +
+            "Content-Length:7\r\n" +
+            "\r\n" +
+            "hello\r\n";
+
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        ByteArrayInputStream in = new ByteArrayInputStream(messages.getBytes(StandardCharsets.US_ASCII));
+
+        MrcpMessage message = decoder.decode(in);
+        assertTrue(message instanceof MrcpResponse);
+        MrcpResponse response = (MrcpResponse) message;
+        assertSame(MrcpMessage.MRCP_VERSION_2_0, response.getVersion());
+        assertEquals(543257, response.getRequestID());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        assertEquals(MrcpRequestState.IN_PROGRESS, response.getRequestState());
+        assertEquals("32AECB23433801@speechrecog", response.getChannelIdentifier().toString());
+
+        message = decoder.decode(in);
+        assertTrue(message instanceof MrcpEvent);
+        MrcpEvent event = (MrcpEvent) message;
+        assertEquals(MrcpEventName.RECOGNITION_COMPLETE, event.getEventName());
+        assertEquals(543257, event.getRequestID());
+        assertEquals(MrcpRequestState.COMPLETE, event.getRequestState());
+        assertEquals("hello\r\n", event.getContent());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testIncorrectStartLine() throws Exception {
+        byte[] bytes = "MRCP/2.0 79 543257 200\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        new MrcpMessageDecoder().decode(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testEmptyLinesBeforeStartLine() throws Exception {
+        byte[] bytes = ("\r\n\r\nMRCP/2.0 28 1 200 COMPLETE\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+
+        MrcpResponse response = (MrcpResponse) decoder.decode(in);
+        assertEquals(1, response.getRequestID());
+        try {
+            decoder.decode(in);
+            fail("Should report the end of the stream");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testEndOfStreamAfterEmptyLines() throws Exception {
+        byte[] bytes = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        new MrcpMessageDecoder().decode(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testTruncatedContent() throws Exception {
+        byte[] bytes = ("MRCP/2.0 99 1 200 COMPLETE\r\n" +
+            "Content-Type:text/plain\r\n" +
+            "Content-Length:20\r\n" +
+            "\r\n" +
+            "short").getBytes(StandardCharsets.US_ASCII);
+        new MrcpMessageDecoder().decode(new ByteArrayInputStream(bytes));
+    }
+
+}
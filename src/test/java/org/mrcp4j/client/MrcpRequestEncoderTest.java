@@ -0,0 +1,69 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.server.MrcpRequestDecoder;
+
+/**
+ * Unit tests for {@link MrcpRequestEncoder}.
+ */
+public class MrcpRequestEncoderTest {
+
+    @Test
+    public void testEncodeRequest() throws Exception {
+        MrcpRequest request = MrcpRequestFactory.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(7);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        request.setContent("application/jsgf", null, "public <r> = été;");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MrcpRequestEncoder().encode(request, out);
+        byte[] bytes = out.toByteArray();
+        assertEquals(bytes.length, request.getMessageLength());
+
+        String message = new String(bytes, StandardCharsets.UTF_8);
+        assertTrue(message.startsWith("MRCP/2.0 " + bytes.length + " DEFINE-GRAMMAR 7\r\n"));
+        assertTrue(message.endsWith("\r\n\r\npublic <r> = été;\r\n"));
+
+        // the request-line parsed back yields the same values
+        int lineEnd = message.indexOf("\r\n");
+        MrcpRequest decoded = MrcpRequestDecoder.createRequest(ByteBuffer.wrap(bytes), 0, lineEnd);
+        assertEquals(MrcpMethodName.DEFINE_GRAMMAR, decoded.getMethodName());
+        assertEquals(bytes.length, decoded.getMessageLength());
+        assertEquals(7, decoded.getRequestID());
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.DefaultTransportMetadata;
+import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+
+/**
+ * Unit tests for {@link MrcpServerMessageDecoder}.
+ */
+public class MrcpServerMessageDecoderTest {
+
+    private MrcpServerMessageDecoder _decoder;
+    private ProtocolCodecSession _session;
+
+    @Before
+    public void setUp() {
+        _decoder = new MrcpServerMessageDecoder();
+        _session = new ProtocolCodecSession();
+        _session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true, SocketAddress.class, IoSessionConfig.class, Object.class));
+    }
+
+    @Test
+    public void testResponseAndEventInOneRead() throws Exception {
+        byte[] response = frame(" 543257 200 IN-PROGRESS\r\nChannel-Identifier:32@speechrecog\r\n\r\n");
+        byte[] event = frame(" RECOGNITION-COMPLETE 543257 COMPLETE\r\nChannel-Identifier:32@speechrecog\r\n" +
+                "Content-Type:text/plain\r\nContent-Length:7\r\n\r\nhello\r\n");
+        decode(concat(response, event));
+        assertEquals(2, _session.getDecoderOutputQueue().size());
+
+        MrcpResponse decodedResponse = (MrcpResponse) _session.getDecoderOutputQueue().poll();
+        assertEquals(543257, decodedResponse.getRequestID());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, decodedResponse.getStatusCode());
+        assertEquals(MrcpRequestState.IN_PROGRESS, decodedResponse.getRequestState());
+        assertEquals("32@speechrecog", decodedResponse.getChannelIdentifier().toString());
+
+        MrcpEvent decodedEvent = (MrcpEvent) _session.getDecoderOutputQueue().poll();
+        assertEquals(MrcpEventName.RECOGNITION_COMPLETE, decodedEvent.getEventName());
+        assertEquals(MrcpRequestState.COMPLETE, decodedEvent.getRequestState());
+        assertEquals("hello\r\n", decodedEvent.getContent());
+    }
+
+    @Test
+    public void testFragmentedEvent() throws Exception {
+        byte[] event = frame(" START-OF-INPUT 12 IN-PROGRESS\r\nChannel-Identifier:32@speechrecog\r\n\r\n");
+        for (int i = 0; i < event.length; i += 5) {
+            assertTrue(_session.getDecoderOutputQueue().isEmpty());
+            decode(slice(event, i, Math.min(event.length, i + 5)));
+        }
+        MrcpEvent decodedEvent = (MrcpEvent) _session.getDecoderOutputQueue().poll();
+        assertEquals(MrcpEventName.START_OF_INPUT, decodedEvent.getEventName());
+        assertEquals(12, decodedEvent.getRequestID());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testIncorrectStartLine() throws Exception {
+        decode(frame(" 543257 200\r\n\r\n"));
+    }
+
+    private void decode(byte[] bytes) throws Exception {
+        _decoder.decode(_session, IoBuffer.wrap(bytes), _session.getDecoderOutput());
+    }
+
+    private static byte[] frame(String message) {
+        // message-length counts the whole message, including its own digits
+        int length = "MRCP/2.0 ".length() + message.length();
+        int digits = Integer.toString(length).length();
+        length += digits;
+        if (Integer.toString(length).length() > digits) {
+            length++;
+        }
+        return ("MRCP/2.0 " + length + message).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        byte[] slice = new byte[to - from];
+        System.arraycopy(bytes, from, slice, 0, slice.length);
+        return slice;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] all = new byte[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+}
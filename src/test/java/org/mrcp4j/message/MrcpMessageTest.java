@@ -0,0 +1,112 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.VendorSpecificHeader;
+
+/**
+ * Unit tests for the header and content storage of {@link MrcpMessage}.
+ */
+public class MrcpMessageTest {
+
+    @Test
+    public void testHeadersKeepInsertionOrder() {
+        MrcpMessage message = new MrcpResponse();
+        message.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        message.addHeader(new VendorSpecificHeader("com.example.foo", "bar"));
+        message.addHeader(MrcpHeaderName.CONTENT_TYPE.createHeader("text/plain"));
+
+        // replacing a header keeps its position
+        MrcpHeader replacement = new VendorSpecificHeader("com.example.foo", "baz");
+        message.addHeader(replacement);
+
+        Iterator<MrcpHeader> it = message.getHeaders().iterator();
+        assertSame(MrcpHeaderName.CHANNEL_IDENTIFIER, it.next().getHeaderName());
+        assertSame(replacement, it.next());
+        assertSame(MrcpHeaderName.CONTENT_TYPE, it.next().getHeaderName());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testGetAndRemoveHeader() {
+        MrcpMessage message = new MrcpResponse();
+        assertNull(message.getHeader(MrcpHeaderName.CONTENT_TYPE));
+
+        MrcpHeader contentType = MrcpHeaderName.CONTENT_TYPE.createHeader("text/plain");
+        MrcpHeader vendor = new VendorSpecificHeader("com.example.foo", "bar");
+        message.addHeader(contentType);
+        message.addHeader(vendor);
+
+        assertSame(contentType, message.getHeader(MrcpHeaderName.CONTENT_TYPE));
+        assertSame(contentType, message.getHeader("Content-Type"));
+        assertSame(vendor, message.getHeader("com.example.foo"));
+
+        assertSame(vendor, message.removeHeader("com.example.foo"));
+        assertNull(message.getHeader("com.example.foo"));
+        assertSame(contentType, message.removeHeader(MrcpHeaderName.CONTENT_TYPE));
+        assertNull(message.getHeader(MrcpHeaderName.CONTENT_TYPE));
+        assertTrue(message.getHeaders().isEmpty());
+    }
+
+    @Test
+    public void testVendorHeaderWithStandardName() {
+        MrcpMessage message = new MrcpResponse();
+        MrcpHeader header = new VendorSpecificHeader("Content-Type", "text/plain");
+        message.addHeader(header);
+        assertSame(header, message.getHeader(MrcpHeaderName.CONTENT_TYPE));
+    }
+
+    @Test
+    public void testByteContent() throws IllegalValueException {
+        byte[] content = "<grammar>\u00e9t\u00e9</grammar>\r\n".getBytes(StandardCharsets.UTF_8);
+        MrcpMessage message = new MrcpResponse();
+        message.setContent("application/srgs+xml", null, content);
+
+        assertSame(content, message.getContentBytes());
+        assertEquals("<grammar>\u00e9t\u00e9</grammar>\r\n", message.getContent());
+        assertEquals(content.length, message.getHeader(MrcpHeaderName.CONTENT_LENGTH).getIntValue());
+    }
+
+    @Test
+    public void testStringContentEncodedWithContentCharset() {
+        MrcpMessage message = new MrcpResponse();
+        message.setContent("text/plain; charset=ISO-8859-1", null, "\u00e9t\u00e9");
+        assertTrue(Arrays.equals("\u00e9t\u00e9\r\n".getBytes(StandardCharsets.ISO_8859_1), message.getContentBytes()));
+
+        message.removeContent();
+        assertFalse(message.hasContent());
+        assertNull(message.getContentBytes());
+        assertNull(message.getContent());
+    }
+
+}
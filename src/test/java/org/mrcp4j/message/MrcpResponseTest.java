@@ -23,6 +23,10 @@
 package org.mrcp4j.message;
 
 import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 /**
@@ -226,4 +230,17 @@ public class MrcpResponseTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncodeStatusCode() {
+        MrcpResponse response = new MrcpResponse();
+        short[] codes = {MrcpResponse.STATUS_SUCCESS, MrcpResponse.STATUS_MESSAGE_TOO_LARGE, 100, 999, 42, -1, 1000};
+        for (short code : codes) {
+            response.setStatusCode(code);
+            ByteBuffer buf = ByteBuffer.allocate(response.getEncodedStatusCodeLength());
+            response.encodeStatusCodeTo(buf);
+            assertFalse(buf.hasRemaining());
+            assertEquals(Short.toString(code), new String(buf.array(), StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MrcpTokenizer}.
+ */
+public class MrcpTokenizerTest {
+
+    @Test
+    public void testTokenize() {
+        ByteBuffer buf = ascii("MRCP/2.0 123 RECOGNIZE 5");
+        int[] bounds = new int[8];
+        assertEquals(4, MrcpTokenizer.tokenize(buf, 0, buf.limit(), bounds));
+        assertEquals("RECOGNIZE", MrcpTokenizer.toAsciiString(buf, bounds[4], bounds[5]));
+        assertEquals(123, MrcpTokenizer.parseInt(buf, bounds[2], bounds[3]));
+        assertEquals(5L, MrcpTokenizer.parseLong(buf, bounds[6], bounds[7]));
+
+        // too many tokens for the bounds array
+        assertEquals(-1, MrcpTokenizer.tokenize(buf, 0, buf.limit(), new int[6]));
+
+        // consecutive spaces produce empty tokens, as String.split(" ") does
+        buf = ascii("a  b");
+        assertEquals(3, MrcpTokenizer.tokenize(buf, 0, buf.limit(), bounds));
+        assertEquals(bounds[2], bounds[3]);
+    }
+
+    @Test
+    public void testTrim() {
+        ByteBuffer buf = ascii("  Content-Length : 12 \r");
+        int from = MrcpTokenizer.trimStart(buf, 0, buf.limit());
+        int to = MrcpTokenizer.trimEnd(buf, from, buf.limit());
+        assertEquals("Content-Length : 12", MrcpTokenizer.toAsciiString(buf, from, to));
+        assertEquals(from + 15, MrcpTokenizer.indexOf(buf, from, to, MrcpTokenizer.COLON));
+        assertEquals(-1, MrcpTokenizer.indexOf(buf, from, to, MrcpTokenizer.LF));
+
+        buf = ascii(" \t\r");
+        assertEquals(buf.limit(), MrcpTokenizer.trimStart(buf, 0, buf.limit()));
+        assertEquals(0, MrcpTokenizer.trimEnd(buf, 0, buf.limit()));
+    }
+
+    @Test
+    public void testParseNumbers() {
+        assertEquals(0, parseInt("0"));
+        assertEquals(-42, parseInt("-42"));
+        assertEquals(42, parseInt("+42"));
+        assertEquals(Integer.MAX_VALUE, parseInt(Integer.toString(Integer.MAX_VALUE)));
+        assertEquals(Integer.MIN_VALUE, parseInt(Integer.toString(Integer.MIN_VALUE)));
+        assertEquals(Long.MAX_VALUE, parseLong(Long.toString(Long.MAX_VALUE)));
+        assertEquals(Long.MIN_VALUE, parseLong(Long.toString(Long.MIN_VALUE)));
+
+        String[] invalid = {"", "-", "+", "12a", " 1", "2147483648", "9223372036854775808", "1.5"};
+        for (String str : invalid) {
+            try {
+                parseInt(str);
+                fail("NumberFormatException expected for: " + str);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+        try {
+            parseLong("9223372036854775808");
+            fail("NumberFormatException expected");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testToVersionString() {
+        ByteBuffer buf = ascii(" MRCP/2.0 ");
+        assertSame(MrcpMessage.MRCP_VERSION_2_0, MrcpTokenizer.toVersionString(buf, 1, 9));
+        buf = ascii("MRCP/1.0");
+        assertEquals("MRCP/1.0", MrcpTokenizer.toVersionString(buf, 0, 8));
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        byte[] bytes = "SPEAK 17".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+        buf.put(bytes).flip();
+        assertEquals("SPEAK", MrcpTokenizer.toAsciiString(buf, 0, 5));
+        assertEquals(17, MrcpTokenizer.parseInt(buf, 6, 8));
+    }
+
+    private static int parseInt(String str) {
+        ByteBuffer buf = ascii(str);
+        return MrcpTokenizer.parseInt(buf, 0, buf.limit());
+    }
+
+    private static long parseLong(String str) {
+        ByteBuffer buf = ascii(str);
+        return MrcpTokenizer.parseLong(buf, 0, buf.limit());
+    }
+
+    private static ByteBuffer ascii(String str) {
+        return ByteBuffer.wrap(str.getBytes(StandardCharsets.US_ASCII));
+    }
+
+}
@@ -23,6 +23,10 @@
 package org.mrcp4j.message.header;
 
 import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 import org.mrcp4j.MrcpResourceType;
 
@@ -232,4 +236,18 @@ public class ChannelIdentifierTest {
         // We can't directly test this as it's protected, but we can verify the factory works
         assertNotNull("Factory should be created", factory);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncodedHeader() throws IllegalValueException {
+        ChannelIdentifier identifier = new ChannelIdentifier("32AECB23433801", MrcpResourceType.SPEECHRECOG);
+        MrcpHeader header = MrcpHeaderName.CHANNEL_IDENTIFIER.constructHeader(identifier);
+
+        ByteBuffer buf = ByteBuffer.allocate(header.getEncodedLength());
+        header.encodeTo(buf);
+        assertFalse(buf.hasRemaining());
+        assertEquals("Channel-Identifier:32AECB23433801@speechrecog", new String(buf.array(), StandardCharsets.US_ASCII));
+
+        // the encoded form is computed once per identifier
+        assertSame(identifier.getEncodedHeader(), identifier.getEncodedHeader());
+    }
+}
@@ -197,4 +197,92 @@ public class MrcpHeaderTest {
         assertNull("Value string should be null", header.getValueString());
         assertFalse("Should not be valid value", header.isValidValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyValueObject() throws IllegalValueException {
+        MrcpHeader header = MrcpHeaderName.CONTENT_LENGTH.createHeader("123");
+        assertTrue("Should be valid value", header.isValidValue());
+        Object value = header.getValueObject();
+        assertEquals(Integer.valueOf(123), value);
+        assertSame("Value object should be parsed only once", value, header.getValueObject());
+    }
+
+    @Test
+    public void testLazyIllegalValue() {
+        MrcpHeader header = MrcpHeaderName.CONTENT_LENGTH.createHeader("-5");
+        assertEquals("-5", header.getValueString());
+        assertFalse("Should not be valid value", header.isValidValue());
+
+        IllegalValueException first = null;
+        try {
+            header.getValueObject();
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            first = e;
+        }
+        try {
+            header.getValueObject();
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            assertSame("Should be the same exception", first, e);
+        }
+    }
+
+    @Test
+    public void testLazyChannelIdentifierWithUnknownResourceType() {
+        MrcpHeader header = MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@unknown");
+        assertFalse("Should not be valid value", header.isValidValue());
+    }
+
+    @Test
+    public void testTypedValues() throws IllegalValueException {
+        assertTrue(MrcpHeaderName.KILL_ON_BARGE_IN.createHeader("TRUE").getBooleanValue());
+        assertFalse(MrcpHeaderName.KILL_ON_BARGE_IN.createHeader("no").getBooleanValue());
+        assertEquals(42, MrcpHeaderName.CONTENT_LENGTH.createHeader(" 42 ").getIntValue());
+        assertEquals(1500L, MrcpHeaderName.SPEECH_COMPLETE_TIMEOUT.createHeader("1500").getLongValue());
+        assertEquals(0.75f, MrcpHeaderName.CONFIDENCE_THRESHOLD.createHeader("0.75").getFloatValue(), 0.0f);
+        assertEquals(-0.5f, MrcpHeaderName.MIN_VERIFICATION_SCORE.createHeader("-0.5").getFloatValue(), 0.0f);
+    }
+
+    @Test
+    public void testTypedValueFromObject() throws IllegalValueException {
+        assertEquals(5000L, MrcpHeaderName.NO_INPUT_TIMEOUT.constructHeader(Long.valueOf(5000)).getLongValue());
+        assertTrue(MrcpHeaderName.SAVE_WAVEFORM.constructHeader(Boolean.TRUE).getBooleanValue());
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void testTypedValueWrongType() throws IllegalValueException {
+        MrcpHeaderName.CONTENT_LENGTH.createHeader("42").getLongValue();
+    }
+
+    @Test
+    public void testTypedValueOutOfRange() {
+        MrcpHeader header = MrcpHeaderName.NO_INPUT_TIMEOUT.createHeader("600001");
+        assertFalse("Should not be valid value", header.isValidValue());
+        try {
+            header.getLongValue();
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            assertEquals("Illegal value for timeout: 600001", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTypedValueNotANumber() {
+        try {
+            MrcpHeaderName.CONFIDENCE_THRESHOLD.createHeader("high").getFloatValue();
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            assertEquals("Illegal java.lang.Float value: high", e.getMessage());
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+    }
+
+    @Test
+    public void testCanonicalValueObjects() throws IllegalValueException {
+        assertSame(Boolean.TRUE, MrcpHeaderName.START_INPUT_TIMERS.createHeader("true").getValueObject());
+        assertSame(Boolean.FALSE, MrcpHeaderName.START_INPUT_TIMERS.createHeader("false").getValueObject());
+        assertSame(MrcpHeaderName.NO_INPUT_TIMEOUT.createHeader("5000").getValueObject(),
+                MrcpHeaderName.SPEECH_INCOMPLETE_TIMEOUT.createHeader("5000").getValueObject());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.apache.mina.filter.codec.ProtocolEncoderException;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.client.MrcpMessageDecoder;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link MrcpMessageEncoder}.
+ */
+public class MrcpMessageEncoderTest {
+
+    @Test
+    public void testEncodeResponse() throws Exception {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        response.setRequestID(543257);
+        response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        response.setRequestState(MrcpRequestState.IN_PROGRESS);
+        response.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+
+        byte[] bytes = encode(response);
+        String expected =
+            "MRCP/2.0 85 543257 200 IN-PROGRESS\r\n" +
+            "Channel-Identifier:32AECB23433801@speechrecog\r\n" +
+            "\r\n";
+        assertEquals(expected, new String(bytes, StandardCharsets.US_ASCII));
+        assertEquals(85, response.getMessageLength());
+    }
+
+    @Test
+    public void testMessageLengthDigitRollover() throws Exception {
+        // grow the body one byte at a time across the 99/100 and 999/1000 boundaries
+        for (int i = 1; i < 1000; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                content.append('x');
+            }
+            MrcpEvent event = createEvent();
+            event.setContent("text/plain", null, content.toString());
+            byte[] bytes = encode(event);
+            assertEquals(bytes.length, event.getMessageLength());
+            String startLine = new String(bytes, 0, 40, StandardCharsets.US_ASCII);
+            assertTrue(startLine, startLine.startsWith("MRCP/2.0 " + bytes.length + " "));
+        }
+    }
+
+    @Test
+    public void testEncodeNonAsciiContent() throws Exception {
+        String text = "Grüße 日本";
+        MrcpEvent event = createEvent();
+        event.setContent("text/plain", null, text);
+
+        byte[] bytes = encode(event);
+        assertEquals(bytes.length, event.getMessageLength());
+        assertEquals(Integer.valueOf((text + "\r\n").getBytes(StandardCharsets.UTF_8).length),
+                event.getHeader(MrcpHeaderName.CONTENT_LENGTH).getValueObject());
+
+        MrcpMessage decoded = new MrcpMessageDecoder().decode(new ByteArrayInputStream(bytes));
+        assertEquals(text + "\r\n", decoded.getContent());
+    }
+
+    @Test
+    public void testEncodeContentWithCharset() throws Exception {
+        String text = "café";
+        MrcpEvent event = createEvent();
+        event.setContent("text/plain; charset=ISO-8859-1", null, text);
+
+        byte[] bytes = encode(event);
+        assertEquals(bytes.length, event.getMessageLength());
+        assertEquals((byte) 0xe9, bytes[bytes.length - 3]);
+
+        MrcpMessage decoded = new MrcpMessageDecoder().decode(new ByteArrayInputStream(bytes));
+        assertEquals(text + "\r\n", decoded.getContent());
+    }
+
+    @Test(expected = ProtocolEncoderException.class)
+    public void testUnsupportedMessageType() throws Exception {
+        new MrcpMessageEncoder().encode(new ProtocolCodecSession(), "message", new ProtocolCodecSession().getEncoderOutput());
+    }
+
+    private static MrcpEvent createEvent() {
+        MrcpEvent event = new MrcpEvent();
+        event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+        event.setRequestID(1);
+        event.setRequestState(MrcpRequestState.COMPLETE);
+        event.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        return event;
+    }
+
+    private static byte[] encode(MrcpMessage message) throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        new MrcpMessageEncoder().encode(session, message, session.getEncoderOutput());
+        IoBuffer buf = (IoBuffer) session.getEncoderOutputQueue().poll();
+        assertEquals(buf.limit(), buf.capacity());
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpProtocolHandler}.
+ */
+public class MrcpProtocolHandlerTest {
+
+    @Test
+    public void testRequestRunsOnExecutor() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        RecordingIoSession session = new RecordingIoSession();
+
+        handler.messageReceived(session, createRequest());
+        assertEquals(1, tasks.size());
+        assertTrue("Nothing should be written before the task runs", session._written.isEmpty());
+
+        tasks.get(0).run();
+        assertEquals(1, session._written.size());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, ((MrcpResponse) session._written.get(0)).getStatusCode());
+    }
+
+    @Test
+    public void testRejectedRequest() {
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        RecordingIoSession session = new RecordingIoSession();
+        MrcpRequest request = createRequest();
+
+        handler.messageReceived(session, request);
+        assertEquals(1, session._written.size());
+        MrcpResponse response = (MrcpResponse) session._written.get(0);
+        assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, response.getStatusCode());
+        assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+        assertEquals(request.getRequestID(), response.getRequestID());
+        assertSame(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER), response.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+    }
+
+    @Test
+    public void testPerChannelDispatch() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        handler.setDispatchMode(MrcpProtocolHandler.DispatchMode.PER_CHANNEL);
+        RecordingIoSession session = new RecordingIoSession();
+
+        handler.messageReceived(session, createRequest("1@speechrecog", 1));
+        handler.messageReceived(session, createRequest("1@speechrecog", 2));
+        handler.messageReceived(session, createRequest("2@speechrecog", 3));
+        assertEquals("Second request of a channel should wait for the first", 2, tasks.size());
+        assertEquals(2, MrcpProtocolHandler.getChannelExecutorCount(session));
+
+        tasks.get(0).run();
+        assertEquals("Next request of the channel should be scheduled", 3, tasks.size());
+        tasks.get(1).run();
+        assertEquals("Drained channel should be forgotten", 1, MrcpProtocolHandler.getChannelExecutorCount(session));
+        tasks.get(2).run();
+        assertEquals(0, MrcpProtocolHandler.getChannelExecutorCount(session));
+        assertEquals(3, session._written.size());
+        assertEquals(1, ((MrcpResponse) session._written.get(0)).getRequestID());
+        assertEquals(3, ((MrcpResponse) session._written.get(1)).getRequestID());
+        assertEquals(2, ((MrcpResponse) session._written.get(2)).getRequestID());
+
+        handler.messageReceived(session, createRequest("1@speechrecog", 4));
+        assertEquals("Channel used again should get a new queue", 1, MrcpProtocolHandler.getChannelExecutorCount(session));
+    }
+
+    @Test
+    public void testAdmissionLimits() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        handler.setMaxInFlightRequests(3);
+        handler.setMaxInFlightRequestsPerConnection(2);
+        handler.setOverloadStatusCode(MrcpResponse.STATUS_PROXY_TIMEOUT);
+        RecordingIoSession first = new RecordingIoSession();
+        RecordingIoSession second = new RecordingIoSession();
+
+        handler.messageReceived(first, createRequest("1@speechrecog", 1));
+        handler.messageReceived(first, createRequest("1@speechrecog", 2));
+        handler.messageReceived(first, createRequest("1@speechrecog", 3));
+        assertEquals("Third request of the connection should be refused", 2, tasks.size());
+        assertEquals(MrcpResponse.STATUS_PROXY_TIMEOUT, ((MrcpResponse) first._written.get(0)).getStatusCode());
+        assertEquals(3, ((MrcpResponse) first._written.get(0)).getRequestID());
+
+        handler.messageReceived(second, createRequest("2@speechrecog", 4));
+        handler.messageReceived(second, createRequest("2@speechrecog", 5));
+        assertEquals("Fifth request should exceed the global limit", 3, tasks.size());
+        assertEquals(MrcpResponse.STATUS_PROXY_TIMEOUT, ((MrcpResponse) second._written.get(0)).getStatusCode());
+        assertEquals(3, handler.getInFlightRequestCount());
+        assertEquals(3, handler.getQueuedRequestCount());
+
+        tasks.get(0).run();
+        assertEquals(2, handler.getInFlightRequestCount());
+        assertEquals(2, handler.getQueuedRequestCount());
+        handler.messageReceived(first, createRequest("1@speechrecog", 6));
+        assertEquals(4, tasks.size());
+    }
+
+    @Test
+    public void testAsyncHandlerHoldsInFlightSlot() {
+        final CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        final List<MrcpSession> sessions = new ArrayList<MrcpSession>();
+        MrcpRequestProcessorImpl processor = new MrcpRequestProcessorImpl();
+        processor.registerAsyncRequestHandler("1@speechrecog", new MrcpAsyncRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+                sessions.add(session);
+                return future;
+            }
+        });
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(processor, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        handler.setMaxInFlightRequests(1);
+        RecordingIoSession session = new RecordingIoSession();
+
+        try {
+            handler.messageReceived(session, createRequest(MrcpMethodName.GET_PARAMS, "1@speechrecog", 1));
+            assertTrue("Handler has not responded yet", session._written.isEmpty());
+            assertEquals("Pending request should stay in flight", 1, handler.getInFlightRequestCount());
+
+            handler.messageReceived(session, createRequest(MrcpMethodName.GET_PARAMS, "1@speechrecog", 2));
+            assertEquals(1, session._written.size());
+            assertEquals(2, ((MrcpResponse) session._written.get(0)).getRequestID());
+
+            future.complete(sessions.get(0).createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE));
+            assertEquals(2, session._written.size());
+            assertEquals(0, handler.getInFlightRequestCount());
+        } finally {
+            processor.dispose();
+        }
+    }
+
+    @Test
+    public void testQueueDepthLimit() {
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                // never runs the request
+            }
+        });
+        handler.setMaxQueuedRequests(1);
+        RecordingIoSession session = new RecordingIoSession();
+
+        handler.messageReceived(session, createRequest("1@speechrecog", 1));
+        handler.messageReceived(session, createRequest("1@speechrecog", 2));
+        assertEquals(1, session._written.size());
+        assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, ((MrcpResponse) session._written.get(0)).getStatusCode());
+        assertEquals(1, handler.getInFlightRequestCount());
+    }
+
+    @Test
+    public void testRejectedRequestReleasesLimits() {
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        handler.setMaxInFlightRequests(1);
+        RecordingIoSession session = new RecordingIoSession();
+
+        handler.messageReceived(session, createRequest());
+        assertEquals(0, handler.getInFlightRequestCount());
+        assertEquals(0, handler.getQueuedRequestCount());
+    }
+
+    @Test
+    public void testControlRequestKeepsChannelOrder() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final List<Runnable> controlTasks = new ArrayList<Runnable>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        handler.setDispatchMode(MrcpProtocolHandler.DispatchMode.PER_CHANNEL);
+        handler.setMaxInFlightRequests(2);
+        handler.setControlExecutor(new Executor() {
+            public void execute(Runnable command) {
+                controlTasks.add(command);
+            }
+        });
+        RecordingIoSession session = new RecordingIoSession();
+
+        handler.messageReceived(session, createRequest("1@speechrecog", 1));
+        handler.messageReceived(session, createRequest("1@speechrecog", 2));
+        handler.messageReceived(session, createRequest(MrcpMethodName.STOP, "1@speechrecog", 3));
+        handler.messageReceived(session, createRequest(MrcpMethodName.STOP, "2@speechrecog", 4));
+        assertEquals(1, tasks.size());
+        assertEquals("STOP of an idle channel should go straight to the control executor", 1, controlTasks.size());
+        assertEquals("Control requests should not count against the limits", 2, handler.getInFlightRequestCount());
+
+        controlTasks.get(0).run();
+        assertEquals(4, ((MrcpResponse) session._written.get(0)).getRequestID());
+
+        tasks.get(0).run();
+        tasks.get(1).run();
+        assertEquals("STOP should wait for the requests before it on its channel", 2, controlTasks.size());
+        controlTasks.get(1).run();
+        assertEquals(4, session._written.size());
+        assertEquals(1, ((MrcpResponse) session._written.get(1)).getRequestID());
+        assertEquals(2, ((MrcpResponse) session._written.get(2)).getRequestID());
+        assertEquals(3, ((MrcpResponse) session._written.get(3)).getRequestID());
+        assertEquals(0, handler.getInFlightRequestCount());
+    }
+
+    private static MrcpRequest createRequest() {
+        return createRequest("32AECB23433801@speechrecog", 42);
+    }
+
+    private static MrcpRequest createRequest(String channelID, long requestID) {
+        return createRequest(MrcpMethodName.SET_PARAMS, channelID, requestID);
+    }
+
+    private static MrcpRequest createRequest(MrcpMethodName methodName, String channelID, long requestID) {
+        MrcpRequest request = MrcpRequestFactory.createRequest(methodName);
+        request.setVersion("MRCP/2.0");
+        request.setRequestID(requestID);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(channelID));
+        return request;
+    }
+
+    // relies on the default processRequest(MrcpRequest, IoSession) writing the response
+    private static class CompletingProcessor implements MrcpRequestProcessor {
+
+        public MrcpResponse processRequest(MrcpRequest request) {
+            MrcpResponse response = new MrcpResponse();
+            response.setRequestID(request.getRequestID());
+            response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+            response.setRequestState(MrcpRequestState.COMPLETE);
+            return response;
+        }
+
+        public MrcpEvent getNextEvent(MrcpRequest request) {
+            throw new IllegalStateException("The specified request has already been completed.");
+        }
+
+    }
+
+}
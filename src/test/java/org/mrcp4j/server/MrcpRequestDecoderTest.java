@@ -0,0 +1,169 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.DefaultTransportMetadata;
+import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Unit tests for {@link MrcpRequestDecoder}.
+ */
+public class MrcpRequestDecoderTest {
+
+    private MrcpRequestDecoder _decoder;
+    private ProtocolCodecSession _session;
+
+    @Before
+    public void setUp() {
+        _decoder = new MrcpRequestDecoder();
+        _session = new ProtocolCodecSession();
+        _session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true, SocketAddress.class, IoSessionConfig.class, Object.class));
+    }
+
+    @Test
+    public void testSingleRequest() throws Exception {
+        decode(request(MrcpMethodName.SET_PARAMS, 1, null));
+
+        MrcpRequest request = (MrcpRequest) _session.getDecoderOutputQueue().poll();
+        assertNotNull(request);
+        assertEquals(MrcpMethodName.SET_PARAMS, request.getMethodName());
+        assertEquals(1, request.getRequestID());
+        assertEquals("32@speechrecog", request.getChannelIdentifier().toString());
+        assertTrue(_session.getDecoderOutputQueue().isEmpty());
+    }
+
+    @Test
+    public void testFragmentedRequest() throws Exception {
+        byte[] message = request(MrcpMethodName.DEFINE_GRAMMAR, 7, body(10000));
+
+        // deliver the message a few bytes at a time, including a split inside the request-line
+        for (int i = 0; i < message.length; i += 13) {
+            assertTrue(_session.getDecoderOutputQueue().isEmpty());
+            decode(slice(message, i, Math.min(message.length, i + 13)));
+        }
+
+        MrcpRequest request = (MrcpRequest) _session.getDecoderOutputQueue().poll();
+        assertNotNull(request);
+        assertEquals(MrcpMethodName.DEFINE_GRAMMAR, request.getMethodName());
+        assertEquals(7, request.getRequestID());
+        assertEquals(message.length, request.getMessageLength());
+        assertEquals(new String(body(10000), StandardCharsets.US_ASCII), request.getContent());
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        byte[] first = request(MrcpMethodName.SET_PARAMS, 1, null);
+        byte[] second = request(MrcpMethodName.DEFINE_GRAMMAR, 2, body(100));
+        byte[] third = request(MrcpMethodName.STOP, 3, null);
+
+        // two complete requests and the start of a third in a single read
+        byte[] all = concat(first, concat(second, third));
+        int split = first.length + second.length + 5;
+        decode(slice(all, 0, split));
+        assertEquals(2, _session.getDecoderOutputQueue().size());
+        decode(slice(all, split, all.length));
+        assertEquals(3, _session.getDecoderOutputQueue().size());
+
+        assertEquals(1, ((MrcpRequest) _session.getDecoderOutputQueue().poll()).getRequestID());
+        MrcpRequest request = (MrcpRequest) _session.getDecoderOutputQueue().poll();
+        assertEquals(2, request.getRequestID());
+        assertEquals(new String(body(100), StandardCharsets.US_ASCII), request.getContent());
+        assertEquals(MrcpMethodName.STOP, ((MrcpRequest) _session.getDecoderOutputQueue().poll()).getMethodName());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testMessageLengthTooLarge() throws Exception {
+        _decoder = new MrcpRequestDecoder(1024);
+        decode(request(MrcpMethodName.DEFINE_GRAMMAR, 1, body(2048)));
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testContentLengthExceedsMessageLength() throws Exception {
+        decode(frame(" DEFINE-GRAMMAR 1\r\nContent-Length:500\r\n\r\nabc"));
+    }
+
+    private void decode(byte[] bytes) throws Exception {
+        _decoder.decode(_session, IoBuffer.wrap(bytes), _session.getDecoderOutput());
+    }
+
+    private static byte[] request(MrcpMethodName method, long requestID, byte[] body) {
+        StringBuilder message = new StringBuilder();
+        message.append(" ").append(method).append(" ").append(requestID).append("\r\n");
+        message.append("Channel-Identifier:32@speechrecog\r\n");
+        if (body != null) {
+            message.append("Content-Type:application/srgs+xml\r\n");
+            message.append("Content-Length:").append(body.length).append("\r\n");
+        }
+        message.append("\r\n");
+        if (body != null) {
+            message.append(new String(body, StandardCharsets.US_ASCII));
+        }
+        return frame(message.toString());
+    }
+
+    private static byte[] frame(String message) {
+        // message-length counts the whole message, including its own digits
+        int length = "MRCP/2.0 ".length() + message.length();
+        int digits = Integer.toString(length).length();
+        length += digits;
+        if (Integer.toString(length).length() > digits) {
+            length++;
+        }
+        return ("MRCP/2.0 " + length + message).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        return body;
+    }
+
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        byte[] slice = new byte[to - from];
+        System.arraycopy(bytes, from, slice, 0, slice.length);
+        return slice;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.CompletionCause;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.util.HashedWheelTimer;
+
+/**
+ * Unit tests for {@link MrcpRequestProcessorImpl}.
+ */
+public class MrcpRequestProcessorImplTest {
+
+    private static final String CHANNEL_ID = "32AECB23433801@speechrecog";
+
+    private HashedWheelTimer _timer;
+    private MrcpRequestProcessorImpl _processor;
+    private volatile MrcpSession _session;
+
+    @Before
+    public void setUp() {
+        _timer = new HashedWheelTimer("test-session-timer", 10, TimeUnit.MILLISECONDS, 64);
+        _processor = new MrcpRequestProcessorImpl(_timer);
+        _processor.registerRequestHandler(CHANNEL_ID, new MrcpRequestHandler() {
+            public MrcpResponse handleRequest(MrcpRequest request, MrcpSession session) {
+                _session = session;
+                return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        _timer.stop();
+    }
+
+    @Test
+    public void testEventsPushedToSession() throws Exception {
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID), ioSession);
+        assertEquals(1, ioSession._written.size());
+        assertEquals(MrcpRequestState.IN_PROGRESS, ((MrcpResponse) ioSession._written.get(0)).getRequestState());
+
+        MrcpEvent started = _session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS);
+        MrcpEvent complete = _session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE);
+        _session.postEvent(started);
+        _session.postEvent(complete);
+        assertEquals(3, ioSession._written.size());
+        assertSame(started, ioSession._written.get(1));
+        assertSame(complete, ioSession._written.get(2));
+
+        try {
+            _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+            fail("Should not accept events after COMPLETE");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResponseForUnknownChannelPushedToSession() {
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest("1@speechsynth"), ioSession);
+        assertEquals(1, ioSession._written.size());
+        assertEquals(MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, ((MrcpResponse) ioSession._written.get(0)).getStatusCode());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testPostEventAfterConnectionClosed() throws Exception {
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID), ioSession);
+        ioSession.closeNow();
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+    }
+
+    @Test
+    public void testEventsQueuedForGetNextEvent() throws Exception {
+        final MrcpRequest request = createRequest(CHANNEL_ID);
+        MrcpResponse response = _processor.processRequest(request);
+        assertEquals(MrcpRequestState.IN_PROGRESS, response.getRequestState());
+
+        // the handler may go away while the request is in progress
+        assertNotNull(_processor.unregisterRequestHandler(CHANNEL_ID));
+
+        final MrcpEvent complete = _session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE);
+        Thread poster = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    _session.postEvent(complete);
+                } catch (TimeoutException e) {
+                    // getNextEvent() fails the test
+                }
+            }
+        };
+        poster.start();
+        assertSame(complete, _processor.getNextEvent(request));
+        poster.join();
+
+        try {
+            _processor.getNextEvent(request);
+            fail("Should not return events after COMPLETE");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRegisterReplacesHandler() {
+        MrcpRequestHandler handler = new MrcpRequestHandler() {
+            public MrcpResponse handleRequest(MrcpRequest request, MrcpSession session) {
+                return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+            }
+        };
+        assertNotNull(_processor.registerRequestHandler(CHANNEL_ID, handler));
+        assertSame(handler, _processor.unregisterRequestHandler(CHANNEL_ID));
+        assertNull(_processor.unregisterRequestHandler(CHANNEL_ID));
+    }
+
+    @Test
+    public void testExpiryPushesCompleteEvent() throws Exception {
+        CompletionCause cause = new CompletionCause((short) 2, "no-input-timeout");
+        _processor.setSessionTimeout(50);
+        _processor.setExpiryCompletionCause(cause);
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID), ioSession);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ioSession._written.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, ioSession._written.size());
+        MrcpEvent event = (MrcpEvent) ioSession._written.get(1);
+        assertEquals(MrcpEventName.RECOGNITION_COMPLETE, event.getEventName());
+        assertEquals(MrcpRequestState.COMPLETE, event.getRequestState());
+        assertEquals(cause, event.getHeader(MrcpHeaderName.COMPLETION_CAUSE).getValueObject());
+
+        try {
+            _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+            fail("Should not accept events after expiry");
+        } catch (TimeoutException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testExpiryReleasesQueuedRequest() {
+        _processor.setSessionTimeout(50);
+        MrcpRequest request = createRequest(CHANNEL_ID);
+        _processor.processRequest(request);
+
+        // no expiry event configured, a waiting caller gets null
+        assertNull(_processor.getNextEvent(request));
+        try {
+            _processor.getNextEvent(request);
+            fail("Expired request should have been removed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testExpiryEvictsUncollectedCompletion() throws Exception {
+        _processor.setSessionTimeout(50);
+        MrcpRequest request = createRequest(CHANNEL_ID);
+        _processor.processRequest(request);
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+
+        assertEquals(1, _processor.getQueuedRequestCount());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (_processor.getQueuedRequestCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        try {
+            _processor.getNextEvent(request);
+            fail("Completed request nobody collected should have been evicted");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEventsPostponeExpiry() throws Exception {
+        // the request outlives the timeout, but the gap between events is a small fraction of it
+        _processor.setSessionTimeout(2000);
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID), ioSession);
+        for (int i = 0; i < 25; i++) {
+            Thread.sleep(100);
+            _session.postEvent(_session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS));
+        }
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+        assertEquals(27, ioSession._written.size());
+    }
+
+    @Test
+    public void testAsyncHandlerCompletingLater() throws Exception {
+        final CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        _processor.registerAsyncRequestHandler(CHANNEL_ID, new MrcpAsyncRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+                _session = session;
+                return future;
+            }
+        });
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID), ioSession);
+        assertTrue("Response should wait for the handler", ioSession._written.isEmpty());
+
+        try {
+            _session.postEvent(_session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS));
+            fail("Should not accept events before the response");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        future.complete(_session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS));
+        assertEquals(1, ioSession._written.size());
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+        assertEquals(2, ioSession._written.size());
+    }
+
+    @Test
+    public void testAsyncHandlerFailing() {
+        _processor.registerAsyncRequestHandler(CHANNEL_ID, new MrcpAsyncRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+                CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+                future.completeExceptionally(new IllegalStateException("engine unavailable"));
+                return future;
+            }
+        });
+        MrcpResponse response = _processor.processRequest(createRequest(CHANNEL_ID));
+        assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, response.getStatusCode());
+        assertNull("Async handlers are not returned as synchronous handlers", _processor.unregisterRequestHandler(CHANNEL_ID));
+    }
+
+    @Test
+    public void testDrainLetsActiveRequestComplete() throws Exception {
+        RecordingIoSession ioSession = new RecordingIoSession();
+        MrcpRequest recognize = createRequest(CHANNEL_ID);
+        _processor.processRequest(recognize, ioSession);
+        MrcpSession session = _session;
+
+        _processor.drain(MrcpResponse.STATUS_METHOD_NOT_VALID_IN_STATE);
+        assertTrue(_processor.isDraining());
+
+        // new operations are rejected, other requests are still handled
+        _processor.processRequest(createRequest(CHANNEL_ID, MrcpMethodName.RECOGNIZE, 2), ioSession);
+        assertEquals(MrcpResponse.STATUS_METHOD_NOT_VALID_IN_STATE,
+                ((MrcpResponse) ioSession._written.get(1)).getStatusCode());
+        _processor.processRequest(createRequest(CHANNEL_ID, MrcpMethodName.STOP, 3), ioSession);
+        assertEquals(MrcpResponse.STATUS_SUCCESS, ((MrcpResponse) ioSession._written.get(2)).getStatusCode());
+
+        try {
+            _processor.registerAsyncRequestHandler("1@speechsynth", new MrcpAsyncRequestHandler() {
+                public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+                    return null;
+                }
+            });
+            fail("Should not open channels while draining");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the test handler leaves the STOP request in progress as well
+        assertEquals(2, _processor.awaitCompletion(20, TimeUnit.MILLISECONDS).size());
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+        List<MrcpRequest> active = _processor.awaitCompletion(20, TimeUnit.MILLISECONDS);
+        assertEquals(1, active.size());
+        assertSame(recognize, active.get(0));
+
+        session.postEvent(session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+        assertTrue(_processor.awaitCompletion(1, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void testAwaitCompletionWithoutDrain() throws Exception {
+        _processor.processRequest(createRequest(CHANNEL_ID), new RecordingIoSession());
+        final MrcpSession session = _session;
+        Thread poster = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                    session.postEvent(session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+                } catch (Exception e) {
+                    // awaitCompletion() fails the test
+                }
+            }
+        };
+        poster.start();
+
+        long start = System.nanoTime();
+        assertTrue(_processor.awaitCompletion(30, TimeUnit.SECONDS).isEmpty());
+        assertTrue("Should return once the request completes",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        poster.join();
+    }
+
+    @Test
+    public void testInProgressResponseAfterDispose() {
+        final CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        _processor.registerAsyncRequestHandler(CHANNEL_ID, new MrcpAsyncRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequestAsync(MrcpRequest request, MrcpSession session) {
+                _session = session;
+                return future;
+            }
+        });
+        RecordingIoSession ioSession = new RecordingIoSession();
+        _processor.processRequest(createRequest(CHANNEL_ID, MrcpMethodName.GET_PARAMS, 1), ioSession);
+        _processor.drain(MrcpResponse.STATUS_METHOD_NOT_VALID_IN_STATE);
+
+        // the timer is gone by the time the handler responds, so the request cannot be tracked
+        _timer.stop();
+        future.complete(_session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS));
+        MrcpResponse response = (MrcpResponse) ioSession._written.get(0);
+        assertEquals(MrcpResponse.STATUS_METHOD_NOT_VALID_IN_STATE, response.getStatusCode());
+        assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+        assertTrue(_processor.getActiveRequests().isEmpty());
+    }
+
+    private static MrcpRequest createRequest(String channelID) {
+        return createRequest(channelID, MrcpMethodName.RECOGNIZE, 1);
+    }
+
+    private static MrcpRequest createRequest(String channelID, MrcpMethodName methodName, long requestID) {
+        MrcpRequest request = MrcpRequestFactory.createRequest(methodName);
+        request.setVersion("MRCP/2.0");
+        request.setRequestID(requestID);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(channelID));
+        return request;
+    }
+
+}
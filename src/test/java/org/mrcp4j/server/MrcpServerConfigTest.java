@@ -0,0 +1,68 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MrcpServerConfigTest {
+
+    @Test
+    public void testDefaults() {
+        MrcpServerConfig config = new MrcpServerConfig();
+        assertNull(config.getExecutor());
+        assertNull(config.getIoProcessor());
+        assertEquals(MrcpProtocolHandler.DispatchMode.CONCURRENT, config.getDispatchMode());
+        assertEquals(1, config.getAcceptorCount());
+        assertEquals(0, config.getProcessorCount());
+        assertEquals(0, config.getBacklog());
+        assertTrue(config.isTcpNoDelay());
+        assertTrue(config.isReuseAddress());
+        assertEquals(0, config.getSendBufferSize());
+        assertEquals(0, config.getReadBufferSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBufferSize() {
+        new MrcpServerConfig().setReceiveBufferSize(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeProcessorCount() {
+        new MrcpServerConfig().setProcessorCount(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroAcceptorCount() {
+        new MrcpServerConfig().setAcceptorCount(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullDispatchMode() {
+        new MrcpServerConfig().setDispatchMode(null);
+    }
+
+}
@@ -28,7 +28,6 @@ import java.net.InetAddress;
 
 import org.junit.Assert;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.mrcp4j.MrcpMethodName;
 import org.mrcp4j.MrcpRequestState;
@@ -82,7 +81,6 @@ public class MrcpClientServerTest {
     }
 
     @Test
-    @Ignore()  
     public void testLargeGrammar() throws Exception {
 
         // force setup
@@ -90,7 +88,7 @@ public class MrcpClientServerTest {
 
         MrcpRequest request = _recogChannel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
         StringBuilder content = new StringBuilder();
-        for (int i = 0; i < 256; i++) { // TODO: make this larger (currently causes the response to never be received)
+        for (int i = 0; i < 64 * 1024; i++) {
             content.append('a');
         }
         request.setContent("application/jsgf", null, content.toString());
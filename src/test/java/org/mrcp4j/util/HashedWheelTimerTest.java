@@ -0,0 +1,98 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link HashedWheelTimer}.
+ */
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer _timer;
+
+    @Before
+    public void setUp() {
+        // a small wheel so that timeouts span several rounds
+        _timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+    }
+
+    @After
+    public void tearDown() {
+        _timer.stop();
+    }
+
+    @Test
+    public void testTimeoutFiresAfterDelay() throws InterruptedException {
+        final CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        _timer.schedule(new Runnable() {
+            public void run() {
+                fired.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue("Should not fire early", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotFire() throws InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch fired = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = _timer.schedule(new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        _timer.schedule(new Runnable() {
+            public void run() {
+                fired.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse("Should only cancel once", timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, count.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleAfterStop() {
+        _timer.stop();
+        _timer.schedule(new Runnable() {
+            public void run() {
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+    }
+
+}
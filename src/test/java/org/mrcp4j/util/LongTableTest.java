@@ -0,0 +1,103 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LongTable}.
+ */
+public class LongTableTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongTable<String> table = new LongTable<String>();
+        assertTrue(table.isEmpty());
+        assertNull(table.put(1, "one"));
+        assertNull(table.put(-7, "minus seven"));
+        assertEquals("one", table.put(1, "uno"));
+        assertEquals(2, table.size());
+
+        assertEquals("uno", table.get(1));
+        assertEquals("minus seven", table.get(-7));
+        assertNull(table.get(2));
+
+        assertEquals("uno", table.remove(1));
+        assertNull(table.remove(1));
+        assertNull(table.get(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        // random operations on a small key range exercise growth and removal within probe sequences
+        LongTable<Long> table = new LongTable<Long>();
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(64);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, Long.valueOf(i)), table.put(key, Long.valueOf(i)));
+            } else {
+                assertEquals(expected.remove(key), table.remove(key));
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (long key = 0; key < 64; key++) {
+            assertEquals(expected.get(key), table.get(key));
+        }
+    }
+
+    @Test
+    public void testValuesAndClear() {
+        LongTable<String> table = new LongTable<String>();
+        for (long key = 1; key <= 10; key++) {
+            table.put(key, "v" + key);
+        }
+        List<String> values = table.values();
+        Collections.sort(values);
+        assertEquals(10, values.size());
+        assertEquals("v1", values.get(0));
+
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertNull(table.get(1));
+        assertTrue(table.values().isEmpty());
+        table.put(3, "again");
+        assertEquals("again", table.get(3));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() {
+        new LongTable<String>().put(1, null);
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SerialExecutor}.
+ */
+public class SerialExecutorTest {
+
+    private ExecutorService _pool;
+
+    @Before
+    public void setUp() {
+        _pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        _pool.shutdownNow();
+    }
+
+    @Test
+    public void testTasksRunInOrderOneAtATime() throws InterruptedException {
+        SerialExecutor executor = new SerialExecutor(_pool);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger active = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            final int n = i;
+            executor.execute(new Runnable() {
+                public void run() {
+                    assertEquals("Tasks should not overlap", 1, active.incrementAndGet());
+                    order.add(n);
+                    active.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testSeparateExecutorsRunInParallel() throws InterruptedException {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable task = new Runnable() {
+            public void run() {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(10, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    // test fails on timeout
+                }
+            }
+        };
+
+        new SerialExecutor(_pool).execute(task);
+        new SerialExecutor(_pool).execute(task);
+        assertTrue("Tasks of separate executors should run concurrently", done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopQueue() throws InterruptedException {
+        SerialExecutor executor = new SerialExecutor(_pool);
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        });
+        executor.execute(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIdleAfterQueueDrains() {
+        final List<Runnable> scheduled = new ArrayList<Runnable>();
+        final AtomicInteger idleCalls = new AtomicInteger();
+        SerialExecutor executor = new SerialExecutor(new Executor() {
+            public void execute(Runnable command) {
+                scheduled.add(command);
+            }
+        }) {
+            @Override
+            protected void idle() {
+                idleCalls.incrementAndGet();
+            }
+        };
+        Runnable task = new Runnable() {
+            public void run() {
+            }
+        };
+        assertTrue(executor.isIdle());
+
+        executor.execute(task);
+        executor.execute(task);
+        assertFalse(executor.isIdle());
+        scheduled.get(0).run();
+        assertEquals("Not idle while a task is queued", 0, idleCalls.get());
+        scheduled.get(1).run();
+        assertEquals(1, idleCalls.get());
+        assertTrue(executor.isIdle());
+    }
+
+    @Test
+    public void testTaskRunsOnItsOwnExecutorInOrder() {
+        final List<Runnable> backing = new ArrayList<Runnable>();
+        final List<Runnable> priority = new ArrayList<Runnable>();
+        final List<Integer> order = new ArrayList<Integer>();
+        SerialExecutor executor = new SerialExecutor(new Executor() {
+            public void execute(Runnable command) {
+                backing.add(command);
+            }
+        });
+        Executor priorityExecutor = new Executor() {
+            public void execute(Runnable command) {
+                priority.add(command);
+            }
+        };
+
+        executor.execute(new Runnable() {
+            public void run() {
+                order.add(1);
+            }
+        });
+        executor.execute(new Runnable() {
+            public void run() {
+                order.add(2);
+            }
+        }, priorityExecutor);
+        assertTrue("Second task should wait for the first", priority.isEmpty());
+
+        backing.get(0).run();
+        assertEquals(1, priority.size());
+        priority.get(0).run();
+        assertEquals(2, order.size());
+        assertEquals(Integer.valueOf(1), order.get(0));
+        assertEquals(Integer.valueOf(2), order.get(1));
+        assertEquals(1, backing.size());
+    }
+
+    @Test
+    public void testRejectedWhenBackingExecutorRejects() {
+        SerialExecutor executor = new SerialExecutor(new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        Runnable task = new Runnable() {
+            public void run() {
+                fail("Rejected task should not run");
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.execute(task);
+                fail("Should have thrown RejectedExecutionException");
+            } catch (RejectedExecutionException e) {
+                // expected, including on retry
+            }
+        }
+    }
+
+}
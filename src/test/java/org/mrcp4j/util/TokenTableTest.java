@@ -0,0 +1,83 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link TokenTable}.
+ */
+public class TokenTableTest {
+
+    @Test
+    public void testGetCharSequence() {
+        TokenTable<MrcpHeaderName> table = new TokenTable<MrcpHeaderName>(MrcpHeaderName.values());
+        for (MrcpHeaderName value : MrcpHeaderName.values()) {
+            assertSame(value, table.get(value.toString()));
+            assertSame(value, table.get(value.toString().toUpperCase()));
+            assertSame(value, table.get(new StringBuilder(value.toString().toLowerCase())));
+        }
+        assertNull(table.get("X-Unknown-Header"));
+        assertNull(table.get(""));
+        assertNull(table.get(null));
+        assertNull(table.get("Content-Lengt"));
+        assertNull(table.get("Content-Lengthh"));
+        assertNull(table.get("Content-Léngth"));
+    }
+
+    @Test
+    public void testGetByteRange() {
+        TokenTable<MrcpMethodName> table = new TokenTable<MrcpMethodName>(MrcpMethodName.values());
+        ByteBuffer buf = ByteBuffer.wrap("MRCP/2.0 123 define-grammar 5".getBytes(StandardCharsets.US_ASCII));
+        assertSame(MrcpMethodName.DEFINE_GRAMMAR, table.get(buf, 13, 27));
+        assertNull(table.get(buf, 13, 26));
+        assertNull(table.get(buf, 0, 8));
+        assertNull(table.get(buf, 13, 13));
+
+        buf = ByteBuffer.wrap(new byte[] {'S', 'T', 'O', (byte) 0xd0});
+        assertNull(table.get(buf, 0, 4));
+        assertSame(MrcpMethodName.STOP, MrcpMethodName.find(ByteBuffer.wrap("stop".getBytes(StandardCharsets.US_ASCII)), 0, 4));
+    }
+
+    @Test
+    public void testSmallTable() {
+        TokenTable<MrcpEventName> table = new TokenTable<MrcpEventName>(new MrcpEventName[] {MrcpEventName.SPEAK_COMPLETE});
+        assertSame(MrcpEventName.SPEAK_COMPLETE, table.get("speak-complete"));
+        assertNull(table.get("SPEECH-MARKER"));
+        assertNull(new TokenTable<MrcpEventName>(new MrcpEventName[0]).get("SPEAK-COMPLETE"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateToken() {
+        new TokenTable<String>(new String[] {"STOP", "stop"});
+    }
+
+}